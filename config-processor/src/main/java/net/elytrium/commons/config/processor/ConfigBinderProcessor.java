@@ -0,0 +1,445 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config.processor;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code ConfigBinder} for every {@code YamlConfig} subclass and for every class used by its fields
+ * that is compiled together with it, so the configs can be loaded and saved without reflection.
+ */
+public class ConfigBinderProcessor extends AbstractProcessor {
+
+  private static final String CONFIG_PACKAGE = "net.elytrium.commons.config";
+  private static final String YAML_CONFIG = CONFIG_PACKAGE + ".YamlConfig";
+  private static final String CONFIG_BINDER = CONFIG_PACKAGE + ".ConfigBinder";
+  private static final String SUFFIX = "_ConfigBinder";
+
+  private final Set<String> generated = new HashSet<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton("*");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Set<TypeElement> compiled = new LinkedHashSet<>();
+    for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+      this.collectTypes(type, compiled);
+    }
+
+    Deque<TypeElement> queue = new ArrayDeque<>();
+    for (TypeElement type : compiled) {
+      if (this.isConfig(type)) {
+        queue.add(type);
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      TypeElement type = queue.poll();
+      String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+      if (!this.canGenerate(type) || !this.generated.add(binaryName)) {
+        continue;
+      }
+
+      this.generate(type, binaryName);
+      for (VariableElement field : this.getFields(type)) {
+        this.enqueue(field.asType(), compiled, queue);
+      }
+    }
+
+    return false;
+  }
+
+  private void collectTypes(TypeElement type, Set<TypeElement> types) {
+    types.add(type);
+    for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+      this.collectTypes(nested, types);
+    }
+  }
+
+  private void enqueue(TypeMirror type, Set<TypeElement> compiled, Deque<TypeElement> queue) {
+    if (type.getKind() == TypeKind.ARRAY) {
+      this.enqueue(((ArrayType) type).getComponentType(), compiled, queue);
+    } else if (type.getKind() == TypeKind.DECLARED) {
+      DeclaredType declaredType = (DeclaredType) type;
+      TypeElement element = (TypeElement) declaredType.asElement();
+      if (compiled.contains(element)) {
+        queue.add(element);
+      }
+
+      for (TypeMirror typeArgument : declaredType.getTypeArguments()) {
+        this.enqueue(typeArgument, compiled, queue);
+      }
+    }
+  }
+
+  private boolean isConfig(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    while (superclass.getKind() == TypeKind.DECLARED) {
+      TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+      if (element.getQualifiedName().contentEquals(YAML_CONFIG)) {
+        return true;
+      }
+
+      superclass = element.getSuperclass();
+    }
+
+    return false;
+  }
+
+  private boolean canGenerate(TypeElement type) {
+    if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)
+        || !this.isAccessible(type) || type.getQualifiedName().toString().startsWith("java.")) {
+      return false;
+    }
+
+    if (type.getEnclosingElement().getKind() != ElementKind.PACKAGE && !type.getModifiers().contains(Modifier.STATIC)) {
+      return false;
+    }
+
+    List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+    for (ExecutableElement constructor : constructors) {
+      if (constructor.getParameters().isEmpty()) {
+        return !constructor.getModifiers().contains(Modifier.PRIVATE) && constructor.getThrownTypes().isEmpty();
+      }
+    }
+
+    return constructors.isEmpty();
+  }
+
+  /**
+   * Checks that the type can be referenced from the generated binder, which is placed in the package of the type.
+   */
+  private boolean isAccessible(Element element) {
+    for (Element current = element; current.getKind() != ElementKind.PACKAGE; current = current.getEnclosingElement()) {
+      Set<Modifier> modifiers = current.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)) {
+        return false;
+      }
+
+      if (!modifiers.contains(Modifier.PUBLIC) && !this.getPackage(current).equals(this.getPackage(element))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private boolean isAccessible(TypeMirror type, PackageElement binderPackage) {
+    switch (type.getKind()) {
+      case ARRAY: {
+        return this.isAccessible(((ArrayType) type).getComponentType(), binderPackage);
+      }
+      case DECLARED: {
+        Element element = ((DeclaredType) type).asElement();
+        for (Element current = element; current.getKind() != ElementKind.PACKAGE; current = current.getEnclosingElement()) {
+          Set<Modifier> modifiers = current.getModifiers();
+          if (modifiers.contains(Modifier.PRIVATE) || (!modifiers.contains(Modifier.PUBLIC) && !this.getPackage(current).equals(binderPackage))) {
+            return false;
+          }
+        }
+
+        return true;
+      }
+      default: {
+        return type.getKind().isPrimitive();
+      }
+    }
+  }
+
+  private PackageElement getPackage(Element element) {
+    return this.processingEnv.getElementUtils().getPackageOf(element);
+  }
+
+  /**
+   * Gets the public fields in the same order as {@link Class#getFields()} does.
+   */
+  private List<VariableElement> getFields(TypeElement type) {
+    List<VariableElement> fields = new ArrayList<>();
+    for (TypeElement current = type; current != null; current = this.getSuperclass(current)) {
+      if (current.getQualifiedName().contentEquals(YAML_CONFIG) || current.getQualifiedName().contentEquals(Object.class.getName())) {
+        break;
+      }
+
+      for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        if (field.getModifiers().contains(Modifier.PUBLIC)) {
+          fields.add(field);
+        }
+      }
+    }
+
+    return fields;
+  }
+
+  @Nullable
+  private TypeElement getSuperclass(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+  }
+
+  private void generate(TypeElement type, String binaryName) {
+    PackageElement binderPackage = this.getPackage(type);
+    String packageName = binderPackage.getQualifiedName().toString();
+    String binderName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_') + SUFFIX;
+    String typeName = this.getTypeName(type.asType());
+
+    try (Writer sourceWriter = this.processingEnv.getFiler()
+        .createSourceFile(packageName.isEmpty() ? binderName : packageName + "." + binderName, type).openWriter();
+         PrintWriter writer = new PrintWriter(sourceWriter)) {
+      if (!packageName.isEmpty()) {
+        writer.println("package " + packageName + ";");
+        writer.println();
+      }
+
+      writer.println("/**");
+      writer.println(" * Generated by " + ConfigBinderProcessor.class.getName() + ", don't edit.");
+      writer.println(" */");
+      writer.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+      writer.println("public final class " + binderName + " implements " + CONFIG_BINDER + "<" + typeName + "> {");
+      writer.println();
+      writer.println("  @Override");
+      writer.println("  public " + typeName + " newInstance() {");
+      writer.println("    return new " + typeName + "();");
+      writer.println("  }");
+      writer.println();
+      writer.println("  @Override");
+      writer.println("  public void describe(" + CONFIG_BINDER + ".TypeDescriptor type) {");
+      String layout = this.getLayout(type);
+      if (!layout.isEmpty()) {
+        writer.println("    type" + layout + ";");
+      }
+      for (VariableElement field : this.getFields(type)) {
+        this.writeField(writer, type, typeName, field, binderPackage);
+      }
+      writer.println("  }");
+      writer.println("}");
+    } catch (IOException e) {
+      this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to generate config binder: " + e.getMessage(), type);
+    }
+  }
+
+  private void writeField(PrintWriter writer, TypeElement owner, String ownerName, VariableElement field, PackageElement binderPackage) {
+    String name = field.getSimpleName().toString();
+    TypeMirror type = this.processingEnv.getTypeUtils().erasure(field.asType());
+    List<String> typeArguments = this.getTypeArguments(field.asType(), binderPackage);
+    AnnotationMirror customSerializer = this.getAnnotation(field, "CustomSerializer");
+    TypeMirror serializerClass = customSerializer == null ? null : (TypeMirror) this.getValue(customSerializer, "serializerClass");
+    if (!this.isAccessible(type, binderPackage) || (serializerClass != null && !this.isAccessible(serializerClass, binderPackage))
+        || typeArguments == null) {
+      writer.println("    type.reflectiveField(\"" + name + "\");");
+      return;
+    }
+
+    Set<Modifier> modifiers = field.getModifiers();
+    boolean staticField = modifiers.contains(Modifier.STATIC);
+    boolean finalField = modifiers.contains(Modifier.FINAL);
+    String typeName = this.getTypeName(type);
+    String target = staticField ? ownerName + "." + name : "((" + ownerName + ") owner)." + name;
+    writer.println("    type.field(\"" + name + "\", " + typeName + ".class,");
+    writer.println("        owner -> " + target + ",");
+    if (staticField || finalField) {
+      writer.print("        null)");
+    } else {
+      writer.print("        (owner, value) -> " + target + " = (" + typeName + ") value)");
+    }
+
+    if (field.asType().getKind() == TypeKind.DECLARED && !((DeclaredType) field.asType()).getTypeArguments().isEmpty()) {
+      writer.print(".typeArguments(" + String.join(", ", typeArguments) + ")");
+    }
+    if (staticField) {
+      writer.print(".staticField()");
+    }
+    if (finalField) {
+      writer.print(".finalField()");
+    }
+    if (this.getAnnotation(field, "Final") != null) {
+      writer.print(".finalValue()");
+    }
+    if (this.getAnnotation(field, "Create") != null) {
+      writer.print(".create()");
+    }
+    if (this.getAnnotation(field, "Compact") != null) {
+      writer.print(".compact()");
+    }
+    Element typeElement = this.processingEnv.getTypeUtils().asElement(type);
+    if (this.getAnnotation(field, "Ignore") != null || modifiers.contains(Modifier.TRANSIENT)
+        || (typeElement != null && this.getAnnotation(typeElement, "Ignore") != null)) {
+      writer.print(".skip()");
+    }
+    AnnotationMirror placeholders = this.getAnnotation(field, "Placeholders");
+    if (placeholders != null) {
+      writer.print(".placeholders(" + this.getStrings(placeholders, "value") + ")");
+    }
+    if (serializerClass != null) {
+      writer.print(".customSerializer(" + this.getTypeName(serializerClass) + ".class)");
+    }
+    writer.println(this.getLayout(field) + ";");
+  }
+
+  /**
+   * Converts the {@code NewLine} and {@code Comment} annotations of the element to the descriptor calls.
+   */
+  private String getLayout(Element element) {
+    StringBuilder layout = new StringBuilder();
+    AnnotationMirror newLine = this.getAnnotation(element, "NewLine");
+    if (newLine != null) {
+      layout.append(".newLines(").append(this.getValue(newLine, "amount")).append(')');
+    }
+
+    AnnotationMirror comment = this.getAnnotation(element, "Comment");
+    if (comment != null) {
+      this.appendComment(layout, comment);
+    }
+
+    AnnotationMirror commentsHolder = this.getAnnotation(element, "CommentsHolder");
+    if (commentsHolder != null) {
+      for (Object value : (List<?>) this.getValue(commentsHolder, "value")) {
+        this.appendComment(layout, (AnnotationMirror) ((AnnotationValue) value).getValue());
+      }
+    }
+
+    return layout.toString();
+  }
+
+  private void appendComment(StringBuilder layout, AnnotationMirror comment) {
+    String at = ((VariableElement) this.getValue(comment, "at")).getSimpleName().toString();
+    String method;
+    switch (at) {
+      case "SAME_LINE": {
+        method = "sameLineComment";
+        break;
+      }
+      case "APPEND": {
+        method = "appendComment";
+        break;
+      }
+      default: {
+        method = "prependComment";
+        break;
+      }
+    }
+
+    layout.append("\n        .").append(method).append('(').append(this.getStrings(comment, "value")).append(')');
+  }
+
+  /**
+   * Converts the type arguments to the class literals, returns null if some of them can't be referenced from the binder.
+   */
+  @Nullable
+  private List<String> getTypeArguments(TypeMirror type, PackageElement binderPackage) {
+    List<String> typeArguments = new ArrayList<>();
+    if (type.getKind() == TypeKind.DECLARED) {
+      for (TypeMirror typeArgument : ((DeclaredType) type).getTypeArguments()) {
+        if (!this.isPlainClass(typeArgument)) {
+          // The reflection doesn't resolve such arguments to classes either.
+          typeArguments.add("(java.lang.Class<?>) null");
+        } else if (this.isAccessible(typeArgument, binderPackage)) {
+          typeArguments.add(this.getTypeName(typeArgument) + ".class");
+        } else {
+          return null;
+        }
+      }
+    }
+
+    return typeArguments;
+  }
+
+  private boolean isPlainClass(TypeMirror type) {
+    if (type.getKind() == TypeKind.ARRAY) {
+      return this.isPlainClass(((ArrayType) type).getComponentType());
+    }
+
+    return type.getKind().isPrimitive() || (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty());
+  }
+
+  private String getTypeName(TypeMirror type) {
+    return this.processingEnv.getTypeUtils().erasure(type).toString();
+  }
+
+  @Nullable
+  private AnnotationMirror getAnnotation(Element element, String name) {
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(YAML_CONFIG + "." + name)) {
+        return annotation;
+      }
+    }
+
+    return null;
+  }
+
+  private Object getValue(AnnotationMirror annotation, String name) {
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values = this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+
+    throw new IllegalStateException("No value " + name + " in " + annotation);
+  }
+
+  private String getStrings(AnnotationMirror annotation, String name) {
+    StringBuilder builder = new StringBuilder();
+    for (Object value : (List<?>) this.getValue(annotation, name)) {
+      if (builder.length() != 0) {
+        builder.append(", ");
+      }
+
+      builder.append(this.processingEnv.getElementUtils().getConstantExpression(((AnnotationValue) value).getValue()));
+    }
+
+    return builder.toString();
+  }
+}
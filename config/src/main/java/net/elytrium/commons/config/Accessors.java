@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates cached field accessors and constructors backed by method handles, falling back to the plain reflection
+ * if a method handle can't be obtained for the member.
+ */
+final class Accessors {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final ClassValue<Supplier<?>> CONSTRUCTORS = new ClassValue<Supplier<?>>() {
+
+    @Override
+    protected Supplier<?> computeValue(Class<?> type) {
+      return Accessors.createConstructor(type);
+    }
+  };
+
+  private Accessors() {
+
+  }
+
+  static FieldAccessor of(Field field) {
+    trySetAccessible(field);
+    boolean staticField = Modifier.isStatic(field.getModifiers());
+    try {
+      MethodHandle getter = LOOKUP.unreflectGetter(field);
+      if (staticField) {
+        getter = MethodHandles.dropArguments(getter, 0, Object.class);
+      }
+
+      MethodHandle setter = null;
+      MethodHandle primitiveSetter = null;
+      if (!staticField && !Modifier.isFinal(field.getModifiers())) {
+        MethodHandle exactSetter = LOOKUP.unreflectSetter(field);
+        setter = exactSetter.asType(SETTER_TYPE);
+        if (field.getType().isPrimitive()) {
+          primitiveSetter = exactSetter.asType(MethodType.methodType(void.class, Object.class, field.getType()));
+        }
+      }
+
+      return new MethodHandleAccessor(field, getter.asType(GETTER_TYPE), setter, primitiveSetter);
+    } catch (IllegalAccessException e) {
+      return new ReflectionAccessor(field);
+    }
+  }
+
+  /**
+   * Creates an accessor from the generated getter and setter.
+   */
+  static FieldAccessor of(String name, Function<Object, Object> getter, @Nullable BiConsumer<Object, Object> setter) {
+    return new FieldAccessor() {
+
+      @Override
+      public Object get(Object owner) {
+        return getter.apply(owner);
+      }
+
+      @Override
+      public void set(Object owner, Object value) {
+        if (setter == null) {
+          throw new IllegalStateException("Field " + name + " can't be modified");
+        }
+
+        setter.accept(owner, value);
+      }
+    };
+  }
+
+  /**
+   * Gets the cached no-args constructor of the class, provided by its {@link ConfigBinder} if there is one.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> Supplier<T> constructor(Class<T> type) {
+    return (Supplier<T>) CONSTRUCTORS.get(type);
+  }
+
+  /**
+   * Whether the class has a no-args constructor or a {@link ConfigBinder}.
+   */
+  static boolean hasConstructor(Class<?> type) {
+    return !(CONSTRUCTORS.get(type) instanceof MissingConstructor);
+  }
+
+  private static Supplier<?> createConstructor(Class<?> type) {
+    ConfigBinder<?> binder = ConfigSchema.getBinder(type);
+    if (binder != null) {
+      return binder::newInstance;
+    }
+
+    Constructor<?> constructor;
+    try {
+      constructor = type.getDeclaredConstructor();
+    } catch (NoSuchMethodException e) {
+      return new MissingConstructor(e.getMessage());
+    }
+
+    trySetAccessible(constructor);
+    try {
+      MethodHandle handle = LOOKUP.unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+      return () -> {
+        try {
+          return handle.invokeExact();
+        } catch (RuntimeException | Error e) {
+          throw e;
+        } catch (Throwable t) {
+          throw new IllegalStateException("Unable to create instance of " + type.getName(), t);
+        }
+      };
+    } catch (IllegalAccessException e) {
+      return () -> {
+        try {
+          return constructor.newInstance();
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException t) {
+          throw new IllegalStateException("Unable to create instance of " + type.getName(), t);
+        }
+      };
+    }
+  }
+
+  private static void trySetAccessible(AccessibleObject object) {
+    try {
+      object.setAccessible(true);
+    } catch (RuntimeException e) {
+      // Members of the inaccessible modules will be checked by the lookup and handled by the fallback.
+    }
+  }
+
+  private static final class MethodHandleAccessor implements FieldAccessor {
+
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    @Nullable
+    private final MethodHandle primitiveSetter;
+    private final Class<?> primitiveType;
+
+    private MethodHandleAccessor(Field field, MethodHandle getter, MethodHandle setter, @Nullable MethodHandle primitiveSetter) {
+      this.field = field;
+      this.getter = getter;
+      this.setter = setter;
+      this.primitiveSetter = primitiveSetter;
+      this.primitiveType = primitiveSetter == null ? void.class : field.getType();
+    }
+
+    @Override
+    public Object get(Object owner) {
+      try {
+        return this.getter.invokeExact(owner);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IllegalStateException("Unable to get field " + this.field.getName(), t);
+      }
+    }
+
+    @Override
+    public void set(Object owner, Object value) {
+      if (this.setter == null) {
+        throw new IllegalStateException("Field " + this.field.getName() + " can't be modified");
+      }
+
+      try {
+        this.setter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    @Override
+    public void setInt(Object owner, int value) {
+      if (this.primitiveType != int.class) {
+        FieldAccessor.super.setInt(owner, value);
+        return;
+      }
+
+      try {
+        this.primitiveSetter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    @Override
+    public void setLong(Object owner, long value) {
+      if (this.primitiveType != long.class) {
+        FieldAccessor.super.setLong(owner, value);
+        return;
+      }
+
+      try {
+        this.primitiveSetter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    @Override
+    public void setDouble(Object owner, double value) {
+      if (this.primitiveType != double.class) {
+        FieldAccessor.super.setDouble(owner, value);
+        return;
+      }
+
+      try {
+        this.primitiveSetter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    @Override
+    public void setFloat(Object owner, float value) {
+      if (this.primitiveType != float.class) {
+        FieldAccessor.super.setFloat(owner, value);
+        return;
+      }
+
+      try {
+        this.primitiveSetter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    @Override
+    public void setBoolean(Object owner, boolean value) {
+      if (this.primitiveType != boolean.class) {
+        FieldAccessor.super.setBoolean(owner, value);
+        return;
+      }
+
+      try {
+        this.primitiveSetter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    @Override
+    public void setShort(Object owner, short value) {
+      if (this.primitiveType != short.class) {
+        FieldAccessor.super.setShort(owner, value);
+        return;
+      }
+
+      try {
+        this.primitiveSetter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    @Override
+    public void setByte(Object owner, byte value) {
+      if (this.primitiveType != byte.class) {
+        FieldAccessor.super.setByte(owner, value);
+        return;
+      }
+
+      try {
+        this.primitiveSetter.invokeExact(owner, value);
+      } catch (Throwable t) {
+        throw this.setFailure(t);
+      }
+    }
+
+    private RuntimeException setFailure(Throwable t) {
+      if (t instanceof Error) {
+        throw (Error) t;
+      } else if (t instanceof RuntimeException) {
+        return (RuntimeException) t;
+      } else {
+        return new IllegalStateException("Unable to set field " + this.field.getName(), t);
+      }
+    }
+  }
+
+  private static final class ReflectionAccessor implements FieldAccessor {
+
+    private final Field field;
+
+    private ReflectionAccessor(Field field) {
+      this.field = field;
+    }
+
+    @Override
+    public Object get(Object owner) {
+      try {
+        return this.field.get(owner);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Unable to get field " + this.field.getName(), e);
+      }
+    }
+
+    @Override
+    public void set(Object owner, Object value) {
+      try {
+        this.field.set(owner, value);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Unable to set field " + this.field.getName(), e);
+      }
+    }
+  }
+
+  private static final class MissingConstructor implements Supplier<Object> {
+
+    private final String message;
+
+    private MissingConstructor(String message) {
+      this.message = message;
+    }
+
+    @Override
+    public Object get() {
+      throw new IllegalStateException("Method not found: " + this.message);
+    }
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tagged binary encoding of the documents, also used by the {@link ConfigCache}.
+ */
+final class BinaryConfigFormat implements ConfigFormat {
+
+  private static final int MAGIC = 0x45434642;
+  private static final byte VERSION = 1;
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte INTEGER = 2;
+  private static final byte LONG = 3;
+  private static final byte BIG_INTEGER = 4;
+  private static final byte DOUBLE = 5;
+  private static final byte TRUE = 6;
+  private static final byte FALSE = 7;
+  private static final byte LIST = 8;
+  private static final byte MAP = 9;
+
+  @Nullable
+  @Override
+  public Object read(InputStream input) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = input.read(buffer)) != -1) {
+      bytes.write(buffer, 0, read);
+    }
+
+    if (bytes.size() == 0) {
+      return null;
+    }
+
+    try {
+      ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+      if (data.getInt() != MAGIC || data.get() != VERSION) {
+        throw new IOException("Not a binary config or an unsupported version");
+      }
+
+      Object document = readValue(data);
+      if (data.hasRemaining()) {
+        throw new IOException("Unexpected data after the document");
+      }
+
+      return document;
+    } catch (RuntimeException e) {
+      throw new IOException("Malformed binary config", e);
+    }
+  }
+
+  @Override
+  public void write(OutputStream output, @Nullable Object document) throws IOException {
+    DataOutputStream dataOutput = new DataOutputStream(output);
+    dataOutput.writeInt(MAGIC);
+    dataOutput.writeByte(VERSION);
+    writeValue(dataOutput, document);
+    dataOutput.flush();
+  }
+
+  /**
+   * Writes the tagged value.
+   *
+   * @throws IllegalStateException If the value is not a document value.
+   */
+  static void writeValue(DataOutputStream output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(NULL);
+    } else if (value instanceof String) {
+      byte[] data = ((String) value).getBytes(StandardCharsets.UTF_8);
+      output.writeByte(STRING);
+      output.writeInt(data.length);
+      output.write(data);
+    } else if (value instanceof Integer) {
+      output.writeByte(INTEGER);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof BigInteger) {
+      byte[] data = ((BigInteger) value).toByteArray();
+      output.writeByte(BIG_INTEGER);
+      output.writeInt(data.length);
+      output.write(data);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      output.writeByte(LIST);
+      output.writeInt(list.size());
+      for (Object element : list) {
+        writeValue(output, element);
+      }
+    } else if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      output.writeByte(MAP);
+      output.writeInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        writeValue(output, entry.getKey());
+        writeValue(output, entry.getValue());
+      }
+    } else {
+      throw new IllegalStateException("Values of " + value.getClass() + " can't be written to the binary format");
+    }
+  }
+
+  /**
+   * Reads the tagged value.
+   *
+   * @throws RuntimeException If the data is malformed.
+   */
+  @Nullable
+  static Object readValue(ByteBuffer buffer) {
+    byte type = buffer.get();
+    switch (type) {
+      case NULL:
+        return null;
+      case STRING: {
+        int length = readLength(buffer, 1);
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+      }
+      case INTEGER:
+        return buffer.getInt();
+      case LONG:
+        return buffer.getLong();
+      case BIG_INTEGER: {
+        byte[] data = new byte[readLength(buffer, 1)];
+        buffer.get(data);
+        return new BigInteger(data);
+      }
+      case DOUBLE:
+        return buffer.getDouble();
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case LIST: {
+        int size = readLength(buffer, 1);
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+          list.add(readValue(buffer));
+        }
+
+        return list;
+      }
+      case MAP: {
+        int size = readLength(buffer, 2);
+        Map<Object, Object> map = new LinkedHashMap<>((int) (size / 0.75F) + 1);
+        for (int i = 0; i < size; ++i) {
+          map.put(readValue(buffer), readValue(buffer));
+        }
+
+        return map;
+      }
+      default:
+        throw new IllegalStateException("Unknown value type " + type);
+    }
+  }
+
+  /**
+   * Reads the length of a value, checking it against the remaining data before anything is allocated for it.
+   *
+   * @param elementSize The minimal size of an element in bytes.
+   */
+  private static int readLength(ByteBuffer buffer, int elementSize) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining() / elementSize) {
+      throw new IllegalStateException("Invalid length " + length + ", " + buffer.remaining() + " bytes remaining");
+    }
+
+    return length;
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Immutable array-backed collections used for the {@link YamlConfig.Compact} fields.
+ *
+ * <p>The string sets and maps keep the elements in the insertion order in plain arrays and index them with
+ * an open-addressing table of the array positions, so an entry costs two references and two table slots
+ * instead of a separate node object.
+ */
+final class CompactCollections {
+
+  private CompactCollections() {
+
+  }
+
+  @SuppressWarnings("unchecked")
+  static <E> List<E> toList(Collection<? extends E> collection) {
+    if (collection instanceof CompactList) {
+      return (List<E>) collection;
+    }
+
+    return collection.isEmpty() ? Collections.emptyList() : new CompactList<>(collection.toArray());
+  }
+
+  /**
+   * Creates a compact set of the strings, the collections with the non-string elements are copied to an unmodifiable linked set.
+   */
+  @SuppressWarnings("unchecked")
+  static <E> Set<E> toSet(Collection<? extends E> collection) {
+    if (collection instanceof CompactStringSet) {
+      return (Set<E>) collection;
+    } else if (collection.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    Object[] elements = collection.toArray();
+    for (Object element : elements) {
+      if (!(element instanceof String)) {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(collection));
+      }
+    }
+
+    String[] strings = new String[elements.length];
+    int[] table = new int[tableSize(elements.length)];
+    int size = 0;
+    for (Object element : elements) {
+      String string = (String) element;
+      if (insert(table, strings, string, size)) {
+        strings[size++] = string;
+      }
+    }
+
+    return (Set<E>) new CompactStringSet(size == strings.length ? strings : Arrays.copyOf(strings, size), table);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V> Map<String, V> toMap(Map<String, ? extends V> map) {
+    if (map instanceof CompactStringMap) {
+      return (Map<String, V>) map;
+    } else if (map.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    String[] keys = new String[map.size()];
+    Object[] values = new Object[keys.length];
+    int[] table = new int[tableSize(keys.length)];
+    int size = 0;
+    for (Map.Entry<String, ? extends V> entry : map.entrySet()) {
+      String key = entry.getKey();
+      if (key == null) {
+        throw new IllegalStateException("Compact maps can't contain null keys");
+      }
+
+      // Map keys are unique, so the key is always inserted.
+      insert(table, keys, key, size);
+      keys[size] = key;
+      values[size++] = entry.getValue();
+    }
+
+    return new CompactStringMap<>(keys, values, table);
+  }
+
+  private static int tableSize(int size) {
+    // Keeps the load factor between 0.25 and 0.5, so the probe sequences stay short.
+    int tableSize = Integer.highestOneBit(Math.max(size, 1)) << 2;
+    if (tableSize <= 0) {
+      throw new IllegalStateException("Too many elements: " + size);
+    }
+
+    return tableSize;
+  }
+
+  private static int hash(Object key) {
+    int hash = key.hashCode();
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Inserts the index of the key if the table doesn't contain it yet.
+   *
+   * @return Whether the key was inserted.
+   */
+  private static boolean insert(int[] table, String[] keys, String key, int index) {
+    int mask = table.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      int position = table[slot];
+      if (position == 0) {
+        table[slot] = index + 1;
+        return true;
+      } else if (keys[position - 1].equals(key)) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Finds the array index of the key, or -1 if there is no such key.
+   */
+  private static int indexOf(int[] table, String[] keys, Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+
+    int mask = table.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      int position = table[slot];
+      if (position == 0) {
+        return -1;
+      } else if (keys[position - 1].equals(key)) {
+        return position - 1;
+      }
+    }
+  }
+
+  private static final class CompactList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final Object[] elements;
+
+    private CompactList(Object[] elements) {
+      this.elements = elements;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+      return (E) this.elements[index];
+    }
+
+    @Override
+    public int size() {
+      return this.elements.length;
+    }
+
+    @Override
+    public Object[] toArray() {
+      return this.elements.clone();
+    }
+  }
+
+  private static final class CompactStringSet extends AbstractSet<String> {
+
+    private final String[] elements;
+    private final int[] table;
+
+    private CompactStringSet(String[] elements, int[] table) {
+      this.elements = elements;
+      this.table = table;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return indexOf(this.table, this.elements, o) != -1;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new ArrayIterator<>(this.elements);
+    }
+
+    @Override
+    public int size() {
+      return this.elements.length;
+    }
+  }
+
+  private static final class CompactStringMap<V> extends AbstractMap<String, V> {
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int[] table;
+
+    private CompactStringMap(String[] keys, Object[] values, int[] table) {
+      this.keys = keys;
+      this.values = values;
+      this.table = table;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+      int index = indexOf(this.table, this.keys, key);
+      return index == -1 ? null : (V) this.values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return indexOf(this.table, this.keys, key) != -1;
+    }
+
+    @Override
+    public int size() {
+      return this.keys.length;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+      return new AbstractSet<Entry<String, V>>() {
+
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+          return new Iterator<Entry<String, V>>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+              return this.index < CompactStringMap.this.keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<String, V> next() {
+              if (!this.hasNext()) {
+                throw new NoSuchElementException();
+              }
+
+              int current = this.index++;
+              return new SimpleImmutableEntry<>(CompactStringMap.this.keys[current], (V) CompactStringMap.this.values[current]);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return CompactStringMap.this.keys.length;
+        }
+      };
+    }
+  }
+
+  private static final class ArrayIterator<E> implements Iterator<E> {
+
+    private final E[] elements;
+    private int index;
+
+    private ArrayIterator(E[] elements) {
+      this.elements = elements;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.index < this.elements.length;
+    }
+
+    @Override
+    public E next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return this.elements[this.index++];
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Describes a config class without reflection.
+ *
+ * <p>Binders are generated by the {@code config-processor} annotation processor as
+ * {@code <SimpleBinaryName>_ConfigBinder} classes in the package of the described class
+ * (e.g. {@code Settings_ConfigBinder} or {@code Settings_Database_ConfigBinder}),
+ * {@link YamlConfig} picks them up automatically and falls back to the reflection if there is no binder.
+ *
+ * @param <T> The described class.
+ */
+public interface ConfigBinder<T> {
+
+  String SUFFIX = "_ConfigBinder";
+
+  T newInstance();
+
+  void describe(TypeDescriptor type);
+
+  /**
+   * Collects the class-level options and the public fields of the described class in the declaration order.
+   */
+  interface TypeDescriptor {
+
+    TypeDescriptor newLines(int amount);
+
+    TypeDescriptor prependComment(String... lines);
+
+    TypeDescriptor sameLineComment(String... lines);
+
+    TypeDescriptor appendComment(String... lines);
+
+    /**
+     * Adds a field with the generated accessors.
+     *
+     * @param name   The class field name.
+     * @param type   The erased field type.
+     * @param getter The field getter.
+     * @param setter The field setter, null for final fields.
+     * @return The descriptor of the field options.
+     */
+    FieldDescriptor field(String name, Class<?> type, Function<Object, Object> getter, BiConsumer<Object, Object> setter);
+
+    /**
+     * Adds a field that can't be accessed from the generated code, so it should be resolved with the reflection.
+     *
+     * @param name The class field name.
+     */
+    void reflectiveField(String name);
+  }
+
+  /**
+   * Collects the options of a single field, mirroring the {@link YamlConfig} annotations.
+   */
+  interface FieldDescriptor {
+
+    /**
+     * Sets the actual type arguments of a parameterized field type, arguments that aren't plain classes should be null.
+     */
+    FieldDescriptor typeArguments(Class<?>... typeArguments);
+
+    FieldDescriptor staticField();
+
+    FieldDescriptor finalField();
+
+    FieldDescriptor finalValue();
+
+    FieldDescriptor create();
+
+    FieldDescriptor compact();
+
+    FieldDescriptor skip();
+
+    FieldDescriptor placeholders(String... placeholders);
+
+    FieldDescriptor customSerializer(Class<? extends ConfigSerializer<?, ?>> serializerClass);
+
+    FieldDescriptor newLines(int amount);
+
+    FieldDescriptor prependComment(String... lines);
+
+    FieldDescriptor sameLineComment(String... lines);
+
+    FieldDescriptor appendComment(String... lines);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Binary cache of the parsed config documents, so the unchanged configs are not parsed by SnakeYAML again.
+ *
+ * <p>The cache holds the document tree as it was read from the YAML, before any macro expansion or binding,
+ * and it's only used if the size, the modification time and the SHA-256 hash of the config file are the same.
+ */
+final class ConfigCache {
+
+  /**
+   * Returned by {@link #read(Path, Key)} if there is no valid cache, as null is a valid document.
+   */
+  static final Object MISS = new Object();
+
+  private static final int MAGIC = 0x45434647;
+  private static final byte VERSION = 1;
+
+  private ConfigCache() {
+
+  }
+
+  /**
+   * Gets the cache file of the config, placed next to it if the cache directory is null.
+   */
+  static Path getCacheFile(Path configFile, @Nullable Path cacheDirectory) {
+    String fileName = String.valueOf(configFile.getFileName());
+    if (cacheDirectory == null) {
+      Path parent = configFile.toAbsolutePath().getParent();
+      if (parent == null) {
+        throw new NullPointerException("Config parent path is null for " + configFile);
+      }
+
+      return parent.resolve("." + fileName + ".cache");
+    }
+
+    // Configs with the same name from the different directories shouldn't share the cache file.
+    String pathHash = Integer.toHexString(configFile.toAbsolutePath().normalize().toString().hashCode());
+    return cacheDirectory.resolve(fileName + "." + pathHash + ".cache");
+  }
+
+  /**
+   * Reads the cached document if the cache key matches.
+   *
+   * @return The cached document, or {@link #MISS} if the cache doesn't exist, is outdated or can't be read.
+   */
+  @Nullable
+  static Object read(Path cacheFile, Key key) {
+    if (!Files.exists(cacheFile)) {
+      return MISS;
+    }
+
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cacheFile));
+      if (buffer.getInt() != MAGIC || buffer.get() != VERSION
+          || buffer.getLong() != key.size || buffer.getLong() != key.lastModified) {
+        return MISS;
+      }
+
+      byte[] hash = new byte[buffer.get() & 0xFF];
+      buffer.get(hash);
+      if (!Arrays.equals(hash, key.hash)) {
+        return MISS;
+      }
+
+      Object document = BinaryConfigFormat.readValue(buffer);
+      return buffer.hasRemaining() ? MISS : document;
+    } catch (IOException | RuntimeException e) {
+      return MISS;
+    }
+  }
+
+  /**
+   * Writes the document to the cache file, replacing the previous cache.
+   *
+   * @throws IllegalStateException If the document contains the values that can't be cached.
+   */
+  static void write(Path cacheFile, Key key, @Nullable Object document) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(MAGIC);
+    output.writeByte(VERSION);
+    output.writeLong(key.size);
+    output.writeLong(key.lastModified);
+    output.writeByte(key.hash.length);
+    output.write(key.hash);
+    BinaryConfigFormat.writeValue(output, document);
+    output.flush();
+
+    Path parent = cacheFile.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    // Every write gets its own temp file, as the same config may be loaded concurrently.
+    Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+    try {
+      Files.write(tempFile, bytes.toByteArray());
+      try {
+        Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Identifies the config file contents the cache was created for.
+   */
+  static final class Key {
+
+    private final long size;
+    private final long lastModified;
+    private final byte[] hash;
+
+    Key(byte[] data, long lastModified) {
+      this.size = data.length;
+      this.lastModified = lastModified;
+      try {
+        this.hash = MessageDigest.getInstance("SHA-256").digest(data);
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
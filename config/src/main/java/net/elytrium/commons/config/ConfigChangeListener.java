@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+
+@FunctionalInterface
+public interface ConfigChangeListener<T> {
+
+  /**
+   * Called after a load if the value of the node was changed.
+   *
+   * @param oldValue The previous value of the node.
+   * @param newValue The loaded value of the node.
+   */
+  void onChange(@Nullable T oldValue, @Nullable T newValue);
+}
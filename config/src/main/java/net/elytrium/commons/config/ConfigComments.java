@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comments and new lines of a field or a type, resolved from {@link YamlConfig.Comment} and {@link YamlConfig.NewLine} annotations.
+ */
+final class ConfigComments {
+
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final int newLines;
+  private final String[] prepend;
+  @Nullable
+  private final String sameLine;
+  private final String[] append;
+
+  private ConfigComments(Builder builder) {
+    this.newLines = builder.newLines;
+    this.prepend = builder.prepend.toArray(new String[0]);
+    this.sameLine = builder.sameLine;
+    this.append = builder.append.toArray(new String[0]);
+  }
+
+  static ConfigComments of(@Nullable YamlConfig.NewLine newLine, YamlConfig.Comment[] comments) {
+    Builder builder = new Builder();
+    if (newLine != null) {
+      builder.newLines(newLine.amount());
+    }
+
+    for (YamlConfig.Comment comment : comments) {
+      switch (comment.at()) {
+        case PREPEND: {
+          builder.prepend(comment.value());
+          break;
+        }
+        case SAME_LINE: {
+          builder.sameLine(comment.value());
+          break;
+        }
+        case APPEND: {
+          builder.append(comment.value());
+          break;
+        }
+        default: {
+          throw new AssertionError("Invalid comment position.");
+        }
+      }
+    }
+
+    return builder.build();
+  }
+
+  int getNewLines() {
+    return this.newLines;
+  }
+
+  /**
+   * Gets the lines of {@link YamlConfig.Comment.At#PREPEND} comments with line separators already applied.
+   */
+  String[] getPrepend() {
+    return this.prepend;
+  }
+
+  /**
+   * Gets the first line of the first {@link YamlConfig.Comment.At#SAME_LINE} comment.
+   */
+  @Nullable
+  String getSameLine() {
+    return this.sameLine;
+  }
+
+  /**
+   * Gets the lines of {@link YamlConfig.Comment.At#APPEND} comments with line separators already applied.
+   */
+  String[] getAppend() {
+    return this.append;
+  }
+
+  /**
+   * Collects the comments in the declaration order.
+   */
+  static final class Builder {
+
+    private final List<String> prepend = new ArrayList<>();
+    private final List<String> append = new ArrayList<>();
+    private int newLines;
+    @Nullable
+    private String sameLine;
+
+    void newLines(int amount) {
+      this.newLines = amount;
+    }
+
+    void prepend(String... lines) {
+      addLines(this.prepend, lines);
+    }
+
+    void sameLine(String... lines) {
+      if (this.sameLine == null) {
+        this.sameLine = lines[0];
+      }
+    }
+
+    void append(String... lines) {
+      addLines(this.append, lines);
+    }
+
+    ConfigComments build() {
+      return new ConfigComments(this);
+    }
+
+    private static void addLines(List<String> lines, String[] commentLines) {
+      for (String commentLine : commentLines) {
+        lines.add(commentLine.replace("\n", LINE_SEPARATOR));
+      }
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares the config values through their schemas.
+ */
+final class ConfigDiff {
+
+  private static final ClassValue<Boolean> COMPARED_BY_SCHEMA = new ClassValue<Boolean>() {
+
+    @Override
+    protected Boolean computeValue(Class<?> cls) {
+      try {
+        return ConfigSchema.isNodeMapping(cls) && cls.getMethod("equals", Object.class).getDeclaringClass() == Object.class;
+      } catch (NoSuchMethodException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  };
+
+  private ConfigDiff() {
+
+  }
+
+  /**
+   * Compares the values, the sections and the node sequences without own equals are compared field by field.
+   */
+  static boolean equals(@Nullable Object first, @Nullable Object second) {
+    if (first == second) {
+      return true;
+    } else if (first == null || second == null) {
+      return false;
+    } else if (first instanceof Map && second instanceof Map) {
+      Map<?, ?> firstMap = (Map<?, ?>) first;
+      Map<?, ?> secondMap = (Map<?, ?>) second;
+      if (firstMap.size() != secondMap.size()) {
+        return false;
+      }
+
+      for (Map.Entry<?, ?> entry : firstMap.entrySet()) {
+        Object key = entry.getKey();
+        if (!secondMap.containsKey(key) || !equals(entry.getValue(), secondMap.get(key))) {
+          return false;
+        }
+      }
+
+      return true;
+    } else if (first instanceof List && second instanceof List) {
+      List<?> firstList = (List<?>) first;
+      List<?> secondList = (List<?>) second;
+      if (firstList.size() != secondList.size()) {
+        return false;
+      }
+
+      Iterator<?> secondIterator = secondList.iterator();
+      for (Object element : firstList) {
+        if (!equals(element, secondIterator.next())) {
+          return false;
+        }
+      }
+
+      return true;
+    } else if (first.getClass() == second.getClass() && COMPARED_BY_SCHEMA.get(first.getClass())) {
+      for (ConfigField field : ConfigSchema.of(first.getClass()).getFields()) {
+        if (!field.isStatic() && !equals(field.get(first), field.get(second))) {
+          return false;
+        }
+      }
+
+      return true;
+    } else {
+      return Objects.equals(first, second);
+    }
+  }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Pre-resolved binding information of a single config field.
+ */
+final class ConfigField {
+
+  private final String name;
+  private final Class<?> type;
+  @Nullable
+  private final Type[] typeArguments;
+  private final boolean staticField;
+  private final boolean finalField;
+  private final boolean finalValue;
+  private final boolean create;
+  private final boolean compact;
+  private final boolean skipped;
+  @Nullable
+  private final String[] placeholders;
+  @Nullable
+  private final Class<? extends ConfigSerializer<?, ?>> customSerializer;
+  private final ConfigComments comments;
+  private final FieldAccessor accessor;
+  private final AtomicReferenceArray<String> nodeNames = new AtomicReferenceArray<>(ConfigSchema.NAMING_COUNT);
+
+  ConfigField(Field field) {
+    this.name = field.getName();
+    this.type = field.getType();
+    Type genericType = field.getGenericType();
+    this.typeArguments = genericType instanceof ParameterizedType ? ((ParameterizedType) genericType).getActualTypeArguments() : null;
+
+    int modifiers = field.getModifiers();
+    this.staticField = Modifier.isStatic(modifiers);
+    this.finalField = Modifier.isFinal(modifiers);
+    this.finalValue = field.getAnnotation(YamlConfig.Final.class) != null;
+    this.create = field.getAnnotation(YamlConfig.Create.class) != null;
+    this.compact = field.getAnnotation(YamlConfig.Compact.class) != null;
+    this.skipped = field.getAnnotation(YamlConfig.Ignore.class) != null
+        || Modifier.isTransient(modifiers)
+        || this.type.getAnnotation(YamlConfig.Ignore.class) != null;
+
+    YamlConfig.Placeholders placeholders = field.getAnnotation(YamlConfig.Placeholders.class);
+    this.placeholders = placeholders == null ? null : placeholders.value();
+    YamlConfig.CustomSerializer customSerializer = field.getAnnotation(YamlConfig.CustomSerializer.class);
+    this.customSerializer = customSerializer == null ? null : customSerializer.serializerClass();
+
+    this.comments = ConfigComments.of(field.getAnnotation(YamlConfig.NewLine.class), field.getAnnotationsByType(YamlConfig.Comment.class));
+    this.accessor = Accessors.of(field);
+  }
+
+  private ConfigField(Builder builder) {
+    this.name = builder.name;
+    this.type = builder.type;
+    this.typeArguments = builder.typeArguments;
+    this.staticField = builder.staticField;
+    this.finalField = builder.finalField;
+    this.finalValue = builder.finalValue;
+    this.create = builder.create;
+    this.compact = builder.compact;
+    this.skipped = builder.skipped;
+    this.placeholders = builder.placeholders;
+    this.customSerializer = builder.customSerializer;
+    this.comments = builder.comments.build();
+    this.accessor = Accessors.of(builder.name, builder.getter, builder.setter);
+  }
+
+  Object get(Object owner) {
+    return this.accessor.get(owner);
+  }
+
+  void set(Object owner, Object value) {
+    this.accessor.set(owner, value);
+  }
+
+  /**
+   * Coerces the value to the field type and sets it, writing the primitives through the specialised setters.
+   */
+  void setCoerced(Object owner, @Nullable Object value) {
+    if (this.type.isPrimitive()) {
+      ConfigValues.setPrimitive(this.accessor, this.type, owner, value);
+    } else {
+      this.accessor.set(owner, ConfigValues.coerce(this.type, value));
+    }
+  }
+
+  String getName() {
+    return this.name;
+  }
+
+  /**
+   * Gets the config node name of this field, converting and caching it on the first call for the given naming.
+   */
+  String getNodeName(int naming, Function<String, String> toNodeName) {
+    String nodeName = this.nodeNames.get(naming);
+    if (nodeName == null) {
+      nodeName = toNodeName.apply(this.name);
+      this.nodeNames.set(naming, nodeName);
+    }
+
+    return nodeName;
+  }
+
+  Class<?> getType() {
+    return this.type;
+  }
+
+  /**
+   * Gets the actual type argument at the specified index, or null if the field type is not parameterized.
+   */
+  @Nullable
+  Type getTypeArgument(int index) {
+    return this.typeArguments == null || index >= this.typeArguments.length ? null : this.typeArguments[index];
+  }
+
+  boolean isParameterized() {
+    return this.typeArguments != null;
+  }
+
+  boolean isStatic() {
+    return this.staticField;
+  }
+
+  boolean isFinal() {
+    return this.finalField;
+  }
+
+  /**
+   * Whether this field is annotated with {@link YamlConfig.Final}.
+   */
+  boolean isFinalValue() {
+    return this.finalValue;
+  }
+
+  boolean isCreate() {
+    return this.create;
+  }
+
+  /**
+   * Whether this field is annotated with {@link YamlConfig.Compact}.
+   */
+  boolean isCompact() {
+    return this.compact;
+  }
+
+  /**
+   * Whether this field is not a part of the saved config.
+   */
+  boolean isSkipped() {
+    return this.skipped;
+  }
+
+  @Nullable
+  String[] getPlaceholders() {
+    return this.placeholders;
+  }
+
+  @Nullable
+  Class<? extends ConfigSerializer<?, ?>> getCustomSerializer() {
+    return this.customSerializer;
+  }
+
+  ConfigComments getComments() {
+    return this.comments;
+  }
+
+  /**
+   * Collects the field described by a {@link ConfigBinder}.
+   */
+  static final class Builder implements ConfigBinder.FieldDescriptor {
+
+    private final String name;
+    private final Class<?> type;
+    private final Function<Object, Object> getter;
+    @Nullable
+    private final BiConsumer<Object, Object> setter;
+    private final ConfigComments.Builder comments = new ConfigComments.Builder();
+    @Nullable
+    private Type[] typeArguments;
+    private boolean staticField;
+    private boolean finalField;
+    private boolean finalValue;
+    private boolean create;
+    private boolean compact;
+    private boolean skipped;
+    @Nullable
+    private String[] placeholders;
+    @Nullable
+    private Class<? extends ConfigSerializer<?, ?>> customSerializer;
+
+    Builder(String name, Class<?> type, Function<Object, Object> getter, @Nullable BiConsumer<Object, Object> setter) {
+      this.name = name;
+      this.type = type;
+      this.getter = getter;
+      this.setter = setter;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor typeArguments(Class<?>... typeArguments) {
+      this.typeArguments = typeArguments.clone();
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor staticField() {
+      this.staticField = true;
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor finalField() {
+      this.finalField = true;
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor finalValue() {
+      this.finalValue = true;
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor create() {
+      this.create = true;
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor compact() {
+      this.compact = true;
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor skip() {
+      this.skipped = true;
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor placeholders(String... placeholders) {
+      this.placeholders = placeholders.clone();
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor customSerializer(Class<? extends ConfigSerializer<?, ?>> serializerClass) {
+      this.customSerializer = serializerClass;
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor newLines(int amount) {
+      this.comments.newLines(amount);
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor prependComment(String... lines) {
+      this.comments.prepend(lines);
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor sameLineComment(String... lines) {
+      this.comments.sameLine(lines);
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor appendComment(String... lines) {
+      this.comments.append(lines);
+      return this;
+    }
+
+    ConfigField build() {
+      return new ConfigField(this);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads and writes the config documents, set with {@link YamlConfig#setFormat(ConfigFormat)}.
+ *
+ * <p>A document is a tree of {@link java.util.Map}s with the string keys, {@link java.util.List}s and scalars,
+ * which are strings, {@link Integer}s, {@link Long}s, {@link java.math.BigInteger}s, {@link Double}s, {@link Boolean}s and nulls.
+ * The same config classes are bound from the documents of any format,
+ * though only {@link #YAML} keeps the comments, as it's written by the config itself.
+ */
+public interface ConfigFormat {
+
+  /**
+   * The default format, read with the streaming parser and written with the comments.
+   */
+  ConfigFormat YAML = new YamlConfigFormat();
+  /**
+   * JSON, read with the streaming parser.
+   */
+  ConfigFormat JSON = new JsonConfigFormat();
+  /**
+   * Compact binary format for the machine-generated configs, which are not edited by hand.
+   */
+  ConfigFormat BINARY = new BinaryConfigFormat();
+
+  /**
+   * Reads the document.
+   *
+   * @param input The input, shouldn't be closed.
+   * @return The document, null if it's empty.
+   */
+  @Nullable
+  Object read(InputStream input) throws IOException;
+
+  /**
+   * Writes the document.
+   *
+   * @param output   The output, shouldn't be closed.
+   * @param document The document.
+   */
+  void write(OutputStream output, @Nullable Object document) throws IOException;
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Map;
+
+/**
+ * Expands the {NL}, {PRFX} and the registered macros of the loaded strings in a single pass.
+ */
+final class ConfigMacros {
+
+  static final String NEW_LINE = "{NL}";
+  static final String PREFIX = "{PRFX}";
+
+  private final String[] names;
+  private final String[] values;
+
+  ConfigMacros(Map<String, String> macros) {
+    this.names = macros.keySet().toArray(new String[0]);
+    this.values = macros.values().toArray(new String[0]);
+  }
+
+  /**
+   * Expands the macros of the value, the expanded macro values are not scanned again.
+   *
+   * @param value     The loaded value.
+   * @param prefix    The {PRFX} value, {PRFX} is left as is if it's null.
+   * @param rawValues The map to record the values with the macros that should be restored on save, keyed by the expanded values.
+   * @return The expanded value, the same instance if there were no macros.
+   */
+  String expand(String value, @Nullable String prefix, Map<String, String> rawValues) {
+    int position = value.indexOf('{');
+    if (position == -1) {
+      return value;
+    }
+
+    StringBuilder builder = null;
+    boolean restorable = false;
+    int start = 0;
+    while (position != -1) {
+      String name = null;
+      String replacement = null;
+      if (value.startsWith(NEW_LINE, position)) {
+        name = NEW_LINE;
+        replacement = "\n";
+      } else if (prefix != null && value.startsWith(PREFIX, position)) {
+        name = PREFIX;
+        replacement = prefix;
+      } else {
+        for (int i = 0; i < this.names.length; ++i) {
+          if (value.startsWith(this.names[i], position)) {
+            name = this.names[i];
+            replacement = this.values[i];
+            break;
+          }
+        }
+      }
+
+      if (name == null) {
+        position = value.indexOf('{', position + 1);
+        continue;
+      }
+
+      if (builder == null) {
+        builder = new StringBuilder(value.length() + 16);
+      }
+
+      // {NL} is restored by the writer itself.
+      restorable |= name != NEW_LINE;
+      builder.append(value, start, position).append(replacement);
+      start = position + name.length();
+      position = value.indexOf('{', start);
+    }
+
+    if (builder == null) {
+      return value;
+    }
+
+    String expanded = builder.append(value, start, value.length()).toString();
+    if (restorable) {
+      rawValues.put(expanded, value);
+    }
+
+    return expanded;
+  }
+}
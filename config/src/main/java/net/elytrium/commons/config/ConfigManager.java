@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads and reloads the registered configs concurrently.
+ *
+ * <p>The configs are loaded on the bounded pool shared with the asynchronous config operations by default,
+ * every config is loaded by a single thread with its own parser, so the configs don't need to be thread-safe.
+ */
+public final class ConfigManager {
+
+  private final Executor executor;
+  private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+  public ConfigManager() {
+    this(ConfigExecutors.getDefault());
+  }
+
+  /**
+   * Creates a manager that loads the configs on the given executor.
+   *
+   * @param executor The executor, should have a bounded amount of threads.
+   */
+  public ConfigManager(@NonNull Executor executor) {
+    this.executor = executor;
+  }
+
+  public <T extends YamlConfig> T register(@NonNull Class<T> configClass, @NonNull Path configFile) {
+    return this.register(configClass, configFile, null);
+  }
+
+  /**
+   * Creates the config with its no-args constructor and registers it.
+   *
+   * @return The created config.
+   */
+  public <T extends YamlConfig> T register(@NonNull Class<T> configClass, @NonNull Path configFile, @Nullable String prefix) {
+    return this.register(Accessors.constructor(configClass).get(), configFile, prefix);
+  }
+
+  public <T extends YamlConfig> T register(@NonNull T config, @NonNull Path configFile) {
+    return this.register(config, configFile, null);
+  }
+
+  /**
+   * Registers the config, every config instance can be registered only once, as it's loaded by a single thread at a time.
+   *
+   * @return The config.
+   * @throws IllegalArgumentException If the config is already registered.
+   */
+  public <T extends YamlConfig> T register(@NonNull T config, @NonNull Path configFile, @Nullable String prefix) {
+    synchronized (this.registrations) {
+      for (Registration registration : this.registrations) {
+        if (registration.config == config) {
+          throw new IllegalArgumentException("Config " + config.getClass().getName() + " is already registered with " + registration.configFile);
+        }
+      }
+
+      this.registrations.add(new Registration(config, configFile, prefix));
+    }
+
+    return config;
+  }
+
+  /**
+   * Removes the registration of the config.
+   *
+   * @return Whether the config was registered.
+   */
+  public boolean unregister(@NonNull YamlConfig config) {
+    return this.registrations.removeIf(registration -> registration.config == config);
+  }
+
+  /**
+   * Loads all registered configs and waits for them, the same as {@link YamlConfig#load(Path, String)}.
+   * Shouldn't be called from the manager executor threads.
+   */
+  public Result loadAll() {
+    return this.loadAllAsync().join();
+  }
+
+  /**
+   * Reloads all registered configs and waits for them, the same as {@link YamlConfig#reload(Path, String)}.
+   * Shouldn't be called from the manager executor threads.
+   */
+  public Result reloadAll() {
+    return this.reloadAllAsync().join();
+  }
+
+  public CompletableFuture<Result> loadAllAsync() {
+    return this.run(false);
+  }
+
+  public CompletableFuture<Result> reloadAllAsync() {
+    return this.run(true);
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private CompletableFuture<Result> run(boolean reload) {
+    long start = System.nanoTime();
+    Registration[] registrations = this.registrations.toArray(new Registration[0]);
+    CompletableFuture<Entry>[] futures = new CompletableFuture[registrations.length];
+    for (int i = 0; i < registrations.length; ++i) {
+      Registration registration = registrations[i];
+      futures[i] = CompletableFuture.supplyAsync(() -> registration.run(reload), this.executor);
+    }
+
+    return CompletableFuture.allOf(futures).thenApply(ignored -> {
+      List<Entry> entries = new ArrayList<>(futures.length);
+      for (CompletableFuture<Entry> future : futures) {
+        entries.add(future.join());
+      }
+
+      return new Result(entries, System.nanoTime() - start);
+    });
+  }
+
+  private static final class Registration {
+
+    private final YamlConfig config;
+    private final Path configFile;
+    @Nullable
+    private final String prefix;
+
+    private Registration(YamlConfig config, Path configFile, @Nullable String prefix) {
+      this.config = config;
+      this.configFile = configFile;
+      this.prefix = prefix;
+    }
+
+    private Entry run(boolean reload) {
+      long start = System.nanoTime();
+      try {
+        YamlConfig.LoadResult result = reload ? this.config.reload(this.configFile, this.prefix) : this.config.load(this.configFile, this.prefix);
+        return new Entry(this.config, this.configFile, result, this.config.getLastLoadReport(), null, System.nanoTime() - start);
+      } catch (Throwable t) {
+        return new Entry(this.config, this.configFile, YamlConfig.LoadResult.FAIL, null, t, System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * Results of all configs loaded by a single {@link #loadAll()} or {@link #reloadAll()} call, in the registration order.
+   */
+  public static final class Result {
+
+    private final List<Entry> entries;
+    private final long elapsedNanos;
+
+    private Result(List<Entry> entries, long elapsedNanos) {
+      this.entries = Collections.unmodifiableList(entries);
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<Entry> getEntries() {
+      return this.entries;
+    }
+
+    /**
+     * Gets the entries of the configs that were not loaded.
+     */
+    public List<Entry> getFailures() {
+      List<Entry> failures = new ArrayList<>();
+      for (Entry entry : this.entries) {
+        if (entry.getFailure() != null) {
+          failures.add(entry);
+        }
+      }
+
+      return failures;
+    }
+
+    public boolean isSuccessful() {
+      for (Entry entry : this.entries) {
+        if (entry.getFailure() != null) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    /**
+     * Gets the wall-clock time of loading all configs.
+     */
+    public Duration getElapsed() {
+      return Duration.ofNanos(this.elapsedNanos);
+    }
+  }
+
+  /**
+   * Result of a single config load.
+   */
+  public static final class Entry {
+
+    private final YamlConfig config;
+    private final Path configFile;
+    private final YamlConfig.LoadResult result;
+    @Nullable
+    private final LoadReport report;
+    @Nullable
+    private final Throwable failure;
+    private final long elapsedNanos;
+
+    private Entry(YamlConfig config, Path configFile, YamlConfig.LoadResult result,
+                  @Nullable LoadReport report, @Nullable Throwable failure, long elapsedNanos) {
+      this.config = config;
+      this.configFile = configFile;
+      this.result = result;
+      this.report = report;
+      this.failure = failure;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    public YamlConfig getConfig() {
+      return this.config;
+    }
+
+    public Path getConfigFile() {
+      return this.configFile;
+    }
+
+    /**
+     * Gets the load result, {@link YamlConfig.LoadResult#FAIL} if the load has thrown an exception.
+     */
+    public YamlConfig.LoadResult getResult() {
+      return this.result;
+    }
+
+    /**
+     * Gets the options that couldn't be bound, null if the whole load has failed.
+     */
+    @Nullable
+    public LoadReport getReport() {
+      return this.report;
+    }
+
+    @Nullable
+    public Throwable getFailure() {
+      return this.failure;
+    }
+
+    public Duration getElapsed() {
+      return Duration.ofNanos(this.elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+      return this.config.getClass().getSimpleName() + " (" + this.configFile + "): " + this.result + " in " + this.getElapsed().toMillis() + "ms";
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the metrics of the last load and save of a config and the totals, optionally exposed as an MXBean.
+ *
+ * <pre> {@code
+ *   ConfigMetrics metrics = ConfigMetrics.register(Settings.IMP, "limboauth");
+ *   // net.elytrium.commons.config:type=Config,name=limboauth
+ * } </pre>
+ */
+public final class ConfigMetrics implements ConfigMetricsListener, ConfigMetricsMXBean, Closeable {
+
+  private static final String DOMAIN = "net.elytrium.commons.config";
+
+  private final YamlConfig config;
+  @Nullable
+  private ObjectName objectName;
+  private volatile String configFile = "";
+  private volatile long loadCount;
+  private volatile long saveCount;
+  private volatile long lastParseTime;
+  private volatile long lastBindTime;
+  private volatile long lastSaveTime;
+  private volatile long totalLoadTime;
+  private volatile long maxLoadTime;
+  private volatile long fileSize;
+  private volatile int keyCount;
+  private volatile int unknownKeyCount;
+  private volatile int failedFieldCount;
+  private volatile int placeholderCount;
+
+  private ConfigMetrics(YamlConfig config) {
+    this.config = config;
+  }
+
+  /**
+   * Creates the metrics of the config and adds them as its listener.
+   */
+  public static ConfigMetrics of(@NonNull YamlConfig config) {
+    ConfigMetrics metrics = new ConfigMetrics(config);
+    config.addMetricsListener(metrics);
+    return metrics;
+  }
+
+  /**
+   * Creates the metrics of the config and registers them in the platform MBean server.
+   *
+   * @param config The config.
+   * @param name   The name property of the MXBean, e.g. the plugin id.
+   */
+  public static ConfigMetrics register(@NonNull YamlConfig config, @NonNull String name) {
+    ConfigMetrics metrics = of(config);
+    try {
+      ObjectName objectName = new ObjectName(DOMAIN + ":type=Config,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+      metrics.objectName = objectName;
+    } catch (JMException e) {
+      config.removeMetricsListener(metrics);
+      throw new IllegalStateException("Unable to register the config metrics " + name, e);
+    }
+
+    return metrics;
+  }
+
+  @Override
+  public synchronized void onLoad(YamlConfig config, Path configFile, Load metrics) {
+    long parseTime = metrics.getParseTime(TimeUnit.MICROSECONDS);
+    long bindTime = metrics.getBindTime(TimeUnit.MICROSECONDS);
+    this.configFile = configFile.toString();
+    this.loadCount = this.loadCount + 1;
+    this.lastParseTime = parseTime;
+    this.lastBindTime = bindTime;
+    this.totalLoadTime = this.totalLoadTime + parseTime + bindTime;
+    this.maxLoadTime = Math.max(this.maxLoadTime, parseTime + bindTime);
+    this.fileSize = metrics.getFileSize();
+    this.keyCount = metrics.getKeyCount();
+    this.unknownKeyCount = metrics.getUnknownKeyCount();
+    this.failedFieldCount = metrics.getFailedFieldCount();
+    this.placeholderCount = metrics.getPlaceholderCount();
+  }
+
+  @Override
+  public synchronized void onSave(YamlConfig config, Path configFile, Save metrics) {
+    this.configFile = configFile.toString();
+    this.saveCount = this.saveCount + 1;
+    this.lastSaveTime = metrics.getSaveTime(TimeUnit.MICROSECONDS);
+  }
+
+  @Override
+  public String getConfigClass() {
+    return this.config.getClass().getName();
+  }
+
+  @Override
+  public String getConfigFile() {
+    return this.configFile;
+  }
+
+  @Override
+  public long getLoadCount() {
+    return this.loadCount;
+  }
+
+  @Override
+  public long getSaveCount() {
+    return this.saveCount;
+  }
+
+  @Override
+  public long getLastParseTime() {
+    return this.lastParseTime;
+  }
+
+  @Override
+  public long getLastBindTime() {
+    return this.lastBindTime;
+  }
+
+  @Override
+  public long getLastSaveTime() {
+    return this.lastSaveTime;
+  }
+
+  @Override
+  public long getTotalLoadTime() {
+    return this.totalLoadTime;
+  }
+
+  @Override
+  public long getMaxLoadTime() {
+    return this.maxLoadTime;
+  }
+
+  @Override
+  public long getFileSize() {
+    return this.fileSize;
+  }
+
+  @Override
+  public int getKeyCount() {
+    return this.keyCount;
+  }
+
+  @Override
+  public int getUnknownKeyCount() {
+    return this.unknownKeyCount;
+  }
+
+  @Override
+  public int getFailedFieldCount() {
+    return this.failedFieldCount;
+  }
+
+  @Override
+  public int getPlaceholderCount() {
+    return this.placeholderCount;
+  }
+
+  /**
+   * Removes the listener from the config and unregisters the MXBean if it was registered.
+   */
+  @Override
+  public void close() {
+    this.config.removeMetricsListener(this);
+    ObjectName objectName = this.objectName;
+    if (objectName != null) {
+      this.objectName = null;
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      try {
+        if (server.isRegistered(objectName)) {
+          server.unregisterMBean(objectName);
+        }
+      } catch (JMException e) {
+        throw new IllegalStateException("Unable to unregister the config metrics " + objectName, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the timings and the sizes of the config loads and saves, registered with {@link YamlConfig#addMetricsListener(ConfigMetricsListener)}.
+ *
+ * <p>The listeners are called on the loading or saving thread after the operation is completed.
+ */
+public interface ConfigMetricsListener {
+
+  default void onLoad(YamlConfig config, Path configFile, Load metrics) {
+
+  }
+
+  default void onSave(YamlConfig config, Path configFile, Save metrics) {
+
+  }
+
+  /**
+   * Metrics of a single successful load.
+   */
+  final class Load {
+
+    private final long parseNanos;
+    private final long bindNanos;
+    private final long fileSize;
+    private final int keyCount;
+    private final int unknownKeyCount;
+    private final int failedFieldCount;
+    private final int placeholderCount;
+
+    Load(long parseNanos, long bindNanos, long fileSize, int keyCount, int unknownKeyCount, int failedFieldCount, int placeholderCount) {
+      this.parseNanos = parseNanos;
+      this.bindNanos = bindNanos;
+      this.fileSize = fileSize;
+      this.keyCount = keyCount;
+      this.unknownKeyCount = unknownKeyCount;
+      this.failedFieldCount = failedFieldCount;
+      this.placeholderCount = placeholderCount;
+    }
+
+    /**
+     * Gets the time spent in the YAML parser, or in reading the binary cache if it was used.
+     */
+    public long getParseTime(TimeUnit unit) {
+      return unit.convert(this.parseNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the rest of the load time, spent in constructing the values and binding them to the fields.
+     */
+    public long getBindTime(TimeUnit unit) {
+      return unit.convert(this.bindNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getFileSize() {
+      return this.fileSize;
+    }
+
+    /**
+     * Gets the amount of the bound config nodes, including the sections and the nodes of the node sequences.
+     */
+    public int getKeyCount() {
+      return this.keyCount;
+    }
+
+    /**
+     * Gets the amount of the config nodes without a matching field.
+     */
+    public int getUnknownKeyCount() {
+      return this.unknownKeyCount;
+    }
+
+    public int getFailedFieldCount() {
+      return this.failedFieldCount;
+    }
+
+    /**
+     * Gets the amount of the values registered in {@link Placeholders}.
+     */
+    public int getPlaceholderCount() {
+      return this.placeholderCount;
+    }
+  }
+
+  /**
+   * Metrics of a single save.
+   */
+  final class Save {
+
+    private final long saveNanos;
+    private final long fileSize;
+    private final YamlConfig.SaveResult result;
+
+    Save(long saveNanos, long fileSize, YamlConfig.SaveResult result) {
+      this.saveNanos = saveNanos;
+      this.fileSize = fileSize;
+      this.result = result;
+    }
+
+    /**
+     * Gets the time spent in rendering, comparing and writing the config.
+     */
+    public long getSaveTime(TimeUnit unit) {
+      return unit.convert(this.saveNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getFileSize() {
+      return this.fileSize;
+    }
+
+    public YamlConfig.SaveResult getResult() {
+      return this.result;
+    }
+  }
+}
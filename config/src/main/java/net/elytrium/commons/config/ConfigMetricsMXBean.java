@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+/**
+ * JMX view of the {@link ConfigMetrics} of a single config, the times are in microseconds.
+ */
+public interface ConfigMetricsMXBean {
+
+  String getConfigClass();
+
+  String getConfigFile();
+
+  long getLoadCount();
+
+  long getSaveCount();
+
+  long getLastParseTime();
+
+  long getLastBindTime();
+
+  long getLastSaveTime();
+
+  long getTotalLoadTime();
+
+  long getMaxLoadTime();
+
+  long getFileSize();
+
+  int getKeyCount();
+
+  int getUnknownKeyCount();
+
+  int getFailedFieldCount();
+
+  int getPlaceholderCount();
+}
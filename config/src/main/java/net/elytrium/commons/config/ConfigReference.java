@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Holds the current snapshot of a config.
+ *
+ * <p>Every load binds the config into a new instance and then swaps it in, so the readers never block
+ * and never see a partially loaded config. The change listeners are called after the swap.
+ * The replaced instance is not disposed, as the readers may still use it,
+ * its placeholders are dropped once it's no longer reachable. The config class should have a no-args constructor.
+ *
+ * @param <T> The config type.
+ */
+public final class ConfigReference<T extends YamlConfig> implements Supplier<T> {
+
+  private volatile T config;
+
+  public ConfigReference(@NonNull T config) {
+    this.config = config;
+  }
+
+  /**
+   * Gets the current snapshot, which is never modified by the subsequent loads.
+   */
+  @Override
+  public T get() {
+    return this.config;
+  }
+
+  public YamlConfig.LoadResult load(@NonNull Path configFile) {
+    return this.load(configFile, null);
+  }
+
+  /**
+   * Loads the config into a new snapshot and swaps it in.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized YamlConfig.LoadResult load(@NonNull Path configFile, @Nullable String prefix) {
+    T current = this.config;
+    T snapshot = (T) current.loadSnapshot(configFile, prefix);
+    if (snapshot == null) {
+      return YamlConfig.LoadResult.CONFIG_NOT_EXISTS;
+    }
+
+    this.config = snapshot;
+    snapshot.dispatchChanges(current);
+    return YamlConfig.LoadResult.SUCCESS;
+  }
+
+  public YamlConfig.LoadResult reload(@NonNull Path configFile) {
+    return this.reload(configFile, null);
+  }
+
+  /**
+   * Loads the config into a new snapshot, swaps it in and saves it, the same as {@link YamlConfig#reload(Path, String)}.
+   */
+  public synchronized YamlConfig.LoadResult reload(@NonNull Path configFile, @Nullable String prefix) {
+    YamlConfig.LoadResult result = this.load(configFile, prefix);
+    this.config.save(configFile);
+    if (result == YamlConfig.LoadResult.CONFIG_NOT_EXISTS) {
+      this.load(configFile, prefix); // Load again, because it now exists.
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Immutable binding schema of a config class, resolved once per class and shared between all config instances.
+ */
+final class ConfigSchema {
+
+  static final int NAMING_COUNT = YamlConfig.FieldNameStyle.values().length * YamlConfig.FieldNameStyle.values().length;
+
+  private static final ClassValue<Optional<ConfigBinder<?>>> BINDERS = new ClassValue<Optional<ConfigBinder<?>>>() {
+
+    @Override
+    protected Optional<ConfigBinder<?>> computeValue(Class<?> type) {
+      return Optional.ofNullable(ConfigSchema.findBinder(type));
+    }
+  };
+  private static final ClassValue<ConfigSchema> SCHEMAS = new ClassValue<ConfigSchema>() {
+
+    @Override
+    protected ConfigSchema computeValue(Class<?> type) {
+      ConfigBinder<?> binder = getBinder(type);
+      if (binder == null) {
+        return ConfigSchema.reflect(type);
+      }
+
+      Builder builder = new Builder(type);
+      binder.describe(builder);
+      return builder.build();
+    }
+  };
+  private static final ClassValue<Boolean> NODE_MAPPINGS = new ClassValue<Boolean>() {
+
+    @Override
+    @SuppressWarnings("deprecation")
+    protected Boolean computeValue(Class<?> cls) {
+      return cls.getAnnotation(YamlConfig.NodeSequence.class) != null
+          || (!cls.isPrimitive() && !cls.isEnum() && !Number.class.isAssignableFrom(cls)
+          && !Map.class.isAssignableFrom(cls) && !Collection.class.isAssignableFrom(cls)
+          && !String.class.isAssignableFrom(cls) && cls != Boolean.class && cls != Character.class);
+    }
+  };
+
+  private final Class<?> type;
+  private final ConfigField[] fields;
+  private final Map<String, ConfigField> fieldsByName;
+  private final ConfigComments comments;
+  private final AtomicReferenceArray<Map<String, ConfigField>> fieldsByNodeName = new AtomicReferenceArray<>(NAMING_COUNT);
+
+  private ConfigSchema(Class<?> type, ConfigField[] fields, ConfigComments comments) {
+    this.type = type;
+    this.fields = fields;
+
+    Map<String, ConfigField> fieldsByName = new HashMap<>();
+    for (ConfigField field : fields) {
+      fieldsByName.putIfAbsent(field.getName(), field);
+    }
+
+    this.fieldsByName = Collections.unmodifiableMap(fieldsByName);
+    this.comments = comments;
+  }
+
+  private static ConfigSchema reflect(Class<?> type) {
+    Field[] fields = type.getFields();
+    ConfigField[] configFields = new ConfigField[fields.length];
+    for (int i = 0; i < fields.length; ++i) {
+      configFields[i] = new ConfigField(fields[i]);
+    }
+
+    return new ConfigSchema(type, configFields,
+        ConfigComments.of(type.getAnnotation(YamlConfig.NewLine.class), type.getAnnotationsByType(YamlConfig.Comment.class)));
+  }
+
+  @Nullable
+  private static ConfigBinder<?> findBinder(Class<?> type) {
+    String name = type.getName();
+    int packageEnd = name.lastIndexOf('.') + 1;
+    String binderName = name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + ConfigBinder.SUFFIX;
+    try {
+      Class<?> binderClass = Class.forName(binderName, true, type.getClassLoader());
+      if (!ConfigBinder.class.isAssignableFrom(binderClass)) {
+        return null;
+      }
+
+      return (ConfigBinder<?>) binderClass.getDeclaredConstructor().newInstance();
+    } catch (ClassNotFoundException | LinkageError e) {
+      return null;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to create config binder " + binderName, e);
+    }
+  }
+
+  static ConfigSchema of(Class<?> type) {
+    return SCHEMAS.get(type);
+  }
+
+  /**
+   * Gets the generated binder of the class, if there is one.
+   */
+  @Nullable
+  static ConfigBinder<?> getBinder(Class<?> type) {
+    return BINDERS.get(type).orElse(null);
+  }
+
+  static boolean isNodeMapping(Class<?> cls) {
+    return NODE_MAPPINGS.get(cls);
+  }
+
+  static int getNaming(YamlConfig.FieldNameStyle classFieldNameStyle, YamlConfig.FieldNameStyle nodeFieldNameStyle) {
+    return classFieldNameStyle.ordinal() * YamlConfig.FieldNameStyle.values().length + nodeFieldNameStyle.ordinal();
+  }
+
+  Class<?> getType() {
+    return this.type;
+  }
+
+  /**
+   * Gets all public fields of the class in the declaration order.
+   */
+  ConfigField[] getFields() {
+    return this.fields;
+  }
+
+  /**
+   * Gets the field by its class field name.
+   */
+  @Nullable
+  ConfigField getField(String name) {
+    return this.fieldsByName.get(name);
+  }
+
+  /**
+   * Gets the field by its config node name, building the node name index on the first call for the given naming.
+   */
+  @Nullable
+  ConfigField getNodeField(String nodeName, int naming, Function<String, String> toNodeName) {
+    Map<String, ConfigField> fieldsByNodeName = this.fieldsByNodeName.get(naming);
+    if (fieldsByNodeName == null) {
+      fieldsByNodeName = new HashMap<>();
+      for (ConfigField field : this.fields) {
+        fieldsByNodeName.putIfAbsent(field.getNodeName(naming, toNodeName), field);
+      }
+
+      fieldsByNodeName = Collections.unmodifiableMap(fieldsByNodeName);
+      this.fieldsByNodeName.set(naming, fieldsByNodeName);
+    }
+
+    return fieldsByNodeName.get(nodeName);
+  }
+
+  /**
+   * Gets the comments and new lines declared on the class itself.
+   */
+  ConfigComments getComments() {
+    return this.comments;
+  }
+
+  /**
+   * Collects the schema described by a {@link ConfigBinder}.
+   */
+  private static final class Builder implements ConfigBinder.TypeDescriptor {
+
+    private final Class<?> type;
+    private final List<Supplier<ConfigField>> fields = new ArrayList<>();
+    private final ConfigComments.Builder comments = new ConfigComments.Builder();
+
+    private Builder(Class<?> type) {
+      this.type = type;
+    }
+
+    @Override
+    public ConfigBinder.TypeDescriptor newLines(int amount) {
+      this.comments.newLines(amount);
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.TypeDescriptor prependComment(String... lines) {
+      this.comments.prepend(lines);
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.TypeDescriptor sameLineComment(String... lines) {
+      this.comments.sameLine(lines);
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.TypeDescriptor appendComment(String... lines) {
+      this.comments.append(lines);
+      return this;
+    }
+
+    @Override
+    public ConfigBinder.FieldDescriptor field(String name, Class<?> type, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+      ConfigField.Builder field = new ConfigField.Builder(name, type, getter, setter);
+      this.fields.add(field::build);
+      return field;
+    }
+
+    @Override
+    public void reflectiveField(String name) {
+      try {
+        ConfigField field = new ConfigField(this.type.getField(name));
+        this.fields.add(() -> field);
+      } catch (NoSuchFieldException e) {
+        throw new IllegalStateException("Config binder of " + this.type.getName() + " is outdated", e);
+      }
+    }
+
+    private ConfigSchema build() {
+      ConfigField[] fields = new ConfigField[this.fields.size()];
+      for (int i = 0; i < fields.length; ++i) {
+        fields[i] = this.fields.get(i).get();
+      }
+
+      return new ConfigSchema(this.type, fields, this.comments.build());
+    }
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registered and custom serializers of a config, resolved by the type hierarchy and the generic element types.
+ *
+ * <p>The resolutions are cached per type until the next registration, the custom serializer instances are kept for the config lifetime.
+ */
+final class ConfigSerializers {
+
+  private static final ConfigSerializer<?, ?> NONE = new ConfigSerializer<Object, Object>(Object.class, Object.class) {
+
+  };
+
+  private final Map<Class<?>, ConfigSerializer<?, ?>> registered = new ConcurrentHashMap<>();
+  private final Map<Class<? extends ConfigSerializer<?, ?>>, ConfigSerializer<?, ?>> custom = new ConcurrentHashMap<>();
+  private final Map<Class<?>, ConfigSerializer<?, ?>> resolved = new ConcurrentHashMap<>();
+  private final Map<Type, ConfigSerializer<?, ?>> listElements = new ConcurrentHashMap<>();
+  private final Map<Type, ConfigSerializer<?, ?>> mapValues = new ConcurrentHashMap<>();
+
+  void register(ConfigSerializer<?, ?> serializer) {
+    this.registered.put(serializer.getToClass(), serializer);
+    this.clearResolutions();
+  }
+
+  /**
+   * Copies the registered serializers, the custom serializer instances and the resolutions of the other config.
+   */
+  void copyFrom(ConfigSerializers other) {
+    this.registered.putAll(other.registered);
+    this.custom.putAll(other.custom);
+    this.resolved.putAll(other.resolved);
+    this.listElements.putAll(other.listElements);
+    this.mapValues.putAll(other.mapValues);
+  }
+
+  ConfigSerializer<?, ?> getCustom(Class<? extends ConfigSerializer<?, ?>> serializerClass) {
+    return this.custom.computeIfAbsent(serializerClass, serializer -> Accessors.constructor(serializer).get());
+  }
+
+  /**
+   * Resolves the registered serializer of the field, applying the element serializer to the values of
+   * the {@code List<T>}, {@code Set<T>} and {@code Map<String, T>} fields if the field type itself has no serializer.
+   */
+  @Nullable
+  ConfigSerializer<?, ?> resolve(ConfigField field) {
+    Class<?> type = field.getType();
+    ConfigSerializer<?, ?> serializer = this.resolve(type);
+    if (serializer == null && field.isParameterized()) {
+      if (Collection.class.isAssignableFrom(type)) {
+        serializer = this.resolveListElements(field.getTypeArgument(0));
+      } else if (Map.class.isAssignableFrom(type)) {
+        serializer = this.resolveMapValues(field.getTypeArgument(1));
+      }
+    }
+
+    return serializer;
+  }
+
+  /**
+   * Resolves the registered serializer of the exact class, its superclasses or its interfaces, in this order.
+   */
+  @Nullable
+  ConfigSerializer<?, ?> resolve(Class<?> type) {
+    return cached(this.resolved, type, this::find);
+  }
+
+  @Nullable
+  private ConfigSerializer<?, ?> resolve(@Nullable Type type) {
+    if (type instanceof Class) {
+      return this.resolve((Class<?>) type);
+    } else if (type instanceof ParameterizedType) {
+      ParameterizedType parameterizedType = (ParameterizedType) type;
+      Type rawType = parameterizedType.getRawType();
+      if (rawType instanceof Class) {
+        ConfigSerializer<?, ?> serializer = this.resolve((Class<?>) rawType);
+        if (serializer != null) {
+          return serializer;
+        }
+
+        Type[] arguments = parameterizedType.getActualTypeArguments();
+        if (Collection.class.isAssignableFrom((Class<?>) rawType)) {
+          return this.resolveListElements(arguments[0]);
+        } else if (Map.class.isAssignableFrom((Class<?>) rawType)) {
+          return this.resolveMapValues(arguments[1]);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  @Nullable
+  private ConfigSerializer<?, ?> resolveListElements(@Nullable Type elementType) {
+    if (elementType == null) {
+      return null;
+    }
+
+    return cached(this.listElements, elementType, key -> {
+      ConfigSerializer<?, ?> elementSerializer = this.resolve(key);
+      return elementSerializer == null ? NONE : new ListSerializer(elementSerializer);
+    });
+  }
+
+  @Nullable
+  private ConfigSerializer<?, ?> resolveMapValues(@Nullable Type valueType) {
+    if (valueType == null) {
+      return null;
+    }
+
+    return cached(this.mapValues, valueType, key -> {
+      ConfigSerializer<?, ?> valueSerializer = this.resolve(key);
+      return valueSerializer == null ? NONE : new MapSerializer(valueSerializer);
+    });
+  }
+
+  private ConfigSerializer<?, ?> find(Class<?> type) {
+    if (this.registered.isEmpty()) {
+      return NONE;
+    }
+
+    ConfigSerializer<?, ?> serializer = this.registered.get(type);
+    if (serializer != null) {
+      return serializer;
+    }
+
+    // Object serializer is only used for the Object fields, otherwise it would hide the serializers of the interfaces.
+    for (Class<?> superclass = type.getSuperclass(); superclass != null && superclass != Object.class; superclass = superclass.getSuperclass()) {
+      serializer = this.registered.get(superclass);
+      if (serializer != null) {
+        return serializer;
+      }
+    }
+
+    Deque<Class<?>> interfaces = new ArrayDeque<>();
+    Set<Class<?>> visited = new HashSet<>();
+    for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+      for (Class<?> directInterface : cls.getInterfaces()) {
+        interfaces.add(directInterface);
+      }
+    }
+
+    while (!interfaces.isEmpty()) {
+      Class<?> currentInterface = interfaces.poll();
+      if (visited.add(currentInterface)) {
+        serializer = this.registered.get(currentInterface);
+        if (serializer != null) {
+          return serializer;
+        }
+
+        for (Class<?> superinterface : currentInterface.getInterfaces()) {
+          interfaces.add(superinterface);
+        }
+      }
+    }
+
+    return NONE;
+  }
+
+  private void clearResolutions() {
+    this.resolved.clear();
+    this.listElements.clear();
+    this.mapValues.clear();
+  }
+
+  /**
+   * Gets the cached resolution, not using computeIfAbsent as the nested generic types are resolved recursively.
+   */
+  @Nullable
+  private static <K> ConfigSerializer<?, ?> cached(Map<K, ConfigSerializer<?, ?>> cache, K key, Function<K, ConfigSerializer<?, ?>> resolver) {
+    ConfigSerializer<?, ?> serializer = cache.get(key);
+    if (serializer == null) {
+      serializer = resolver.apply(key);
+      ConfigSerializer<?, ?> previous = cache.putIfAbsent(key, serializer);
+      if (previous != null) {
+        serializer = previous;
+      }
+    }
+
+    return serializer == NONE ? null : serializer;
+  }
+
+  /**
+   * Applies the element serializer to each collection element, collecting them to a list, the other values are left as is.
+   */
+  @SuppressWarnings("rawtypes")
+  private static final class ListSerializer extends ConfigSerializer<List, List> {
+
+    private final ConfigSerializer<?, ?> elementSerializer;
+
+    ListSerializer(ConfigSerializer<?, ?> elementSerializer) {
+      super(List.class, List.class);
+      this.elementSerializer = elementSerializer;
+    }
+
+    @Override
+    public Object serializeRaw(Object from) {
+      if (!(from instanceof Collection)) {
+        return from;
+      }
+
+      Collection<?> list = (Collection<?>) from;
+      List<Object> serialized = new ArrayList<>(list.size());
+      for (Object element : list) {
+        serialized.add(element == null ? null : this.elementSerializer.serializeRaw(element));
+      }
+
+      return serialized;
+    }
+
+    @Override
+    public Object deserializeRaw(Object from) {
+      if (!(from instanceof Collection)) {
+        return from;
+      }
+
+      Collection<?> list = (Collection<?>) from;
+      List<Object> deserialized = new ArrayList<>(list.size());
+      for (Object element : list) {
+        deserialized.add(element == null ? null : this.elementSerializer.deserializeRaw(element));
+      }
+
+      return deserialized;
+    }
+  }
+
+  /**
+   * Applies the value serializer to each map value, the non-map values are left as is.
+   */
+  @SuppressWarnings("rawtypes")
+  private static final class MapSerializer extends ConfigSerializer<Map, Map> {
+
+    private final ConfigSerializer<?, ?> valueSerializer;
+
+    MapSerializer(ConfigSerializer<?, ?> valueSerializer) {
+      super(Map.class, Map.class);
+      this.valueSerializer = valueSerializer;
+    }
+
+    @Override
+    public Object serializeRaw(Object from) {
+      if (!(from instanceof Map)) {
+        return from;
+      }
+
+      Map<?, ?> map = (Map<?, ?>) from;
+      Map<Object, Object> serialized = new LinkedHashMap<>((int) (map.size() / 0.75F) + 1);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        Object value = entry.getValue();
+        serialized.put(entry.getKey(), value == null ? null : this.valueSerializer.serializeRaw(value));
+      }
+
+      return serialized;
+    }
+
+    @Override
+    public Object deserializeRaw(Object from) {
+      if (!(from instanceof Map)) {
+        return from;
+      }
+
+      Map<?, ?> map = (Map<?, ?>) from;
+      Map<Object, Object> deserialized = new LinkedHashMap<>((int) (map.size() / 0.75F) + 1);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        Object value = entry.getValue();
+        deserialized.put(entry.getKey(), value == null ? null : this.valueSerializer.deserializeRaw(value));
+      }
+
+      return deserialized;
+    }
+  }
+}
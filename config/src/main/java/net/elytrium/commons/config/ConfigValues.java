@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Coerces the loaded scalars to the field types and writes the primitive fields without boxing.
+ *
+ * <p>Numbers are converted between the numeric types if the value fits into the target type without losing precision.
+ * Strings are accepted for the numeric fields too, the integral fields accept the sizes with the binary unit suffix,
+ * e.g. {@code 64MB} or {@code 512KiB}, and the {@link Duration} fields accept the durations like {@code 10s} or {@code 1h30m},
+ * the ISO-8601 durations and the plain numbers of milliseconds.
+ */
+final class ConfigValues {
+
+  private static final long[] DURATION_UNITS = {
+      24L * 60L * 60L * 1000L,
+      60L * 60L * 1000L,
+      60L * 1000L,
+      1000L,
+      1L
+  };
+  private static final String[] DURATION_SUFFIXES = {
+      "d", "h", "m", "s", "ms"
+  };
+
+  private ConfigValues() {
+
+  }
+
+  /**
+   * Coerces the value and writes it to the primitive field through the specialised setter.
+   */
+  static void setPrimitive(FieldAccessor accessor, Class<?> type, Object owner, @Nullable Object value) {
+    if (value == null) {
+      throw new IllegalStateException("null can't be set to the " + type + " field");
+    }
+
+    if (type == int.class) {
+      accessor.setInt(owner, toInt(value));
+    } else if (type == long.class) {
+      accessor.setLong(owner, toLong(value));
+    } else if (type == double.class) {
+      accessor.setDouble(owner, toDouble(value));
+    } else if (type == boolean.class) {
+      accessor.setBoolean(owner, toBoolean(value));
+    } else if (type == float.class) {
+      accessor.setFloat(owner, toFloat(value));
+    } else if (type == short.class) {
+      accessor.setShort(owner, (short) toIntegral(value, Short.MIN_VALUE, Short.MAX_VALUE));
+    } else if (type == byte.class) {
+      accessor.setByte(owner, (byte) toIntegral(value, Byte.MIN_VALUE, Byte.MAX_VALUE));
+    } else {
+      accessor.set(owner, toChar(value));
+    }
+  }
+
+  /**
+   * Coerces the value to the boxed numeric, {@link Character} or {@link Duration} type, other values are returned as is.
+   */
+  @Nullable
+  static Object coerce(Class<?> type, @Nullable Object value) {
+    if (value == null || type.isInstance(value)) {
+      return value;
+    }
+
+    if (type == Integer.class) {
+      return toInt(value);
+    } else if (type == Long.class) {
+      return toLong(value);
+    } else if (type == Double.class) {
+      return toDouble(value);
+    } else if (type == Float.class) {
+      return toFloat(value);
+    } else if (type == Boolean.class) {
+      return toBoolean(value);
+    } else if (type == Short.class) {
+      return (short) toIntegral(value, Short.MIN_VALUE, Short.MAX_VALUE);
+    } else if (type == Byte.class) {
+      return (byte) toIntegral(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    } else if (type == Character.class) {
+      return toChar(value);
+    } else if (type == Duration.class) {
+      return toDuration(value);
+    } else if (type == BigInteger.class && value instanceof Number) {
+      return toBigDecimal(value).toBigIntegerExact();
+    } else if (type == BigDecimal.class && value instanceof Number) {
+      return toBigDecimal(value);
+    }
+
+    return value;
+  }
+
+  static int toInt(Object value) {
+    return (int) toIntegral(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  static long toLong(Object value) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return ((Number) value).longValue();
+    } else if (value instanceof Double || value instanceof Float) {
+      double doubleValue = ((Number) value).doubleValue();
+      long longValue = (long) doubleValue;
+      if (longValue != doubleValue) {
+        throw new IllegalStateException("Value " + value + " is not an integer");
+      }
+
+      return longValue;
+    } else if (value instanceof Number) {
+      return exact(toBigDecimal(value), value);
+    } else if (value instanceof String) {
+      return parseSize((String) value);
+    }
+
+    throw new IllegalStateException("Unable to convert " + value + " to a number");
+  }
+
+  static double toDouble(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    } else if (value instanceof String) {
+      try {
+        return Double.parseDouble(((String) value).trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalStateException("Unable to convert " + value + " to a number", e);
+      }
+    }
+
+    throw new IllegalStateException("Unable to convert " + value + " to a number");
+  }
+
+  static float toFloat(Object value) {
+    double doubleValue = toDouble(value);
+    if (Math.abs(doubleValue) > Float.MAX_VALUE && !Double.isInfinite(doubleValue)) {
+      throw new IllegalStateException("Value " + value + " is out of the float range");
+    }
+
+    return (float) doubleValue;
+  }
+
+  static boolean toBoolean(Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    } else if (value instanceof String) {
+      String stringValue = ((String) value).trim();
+      if (stringValue.equalsIgnoreCase("true")) {
+        return true;
+      } else if (stringValue.equalsIgnoreCase("false")) {
+        return false;
+      }
+    }
+
+    throw new IllegalStateException("Unable to convert " + value + " to a boolean");
+  }
+
+  static char toChar(Object value) {
+    if (value instanceof Character) {
+      return (Character) value;
+    } else if (value instanceof String && ((String) value).length() == 1) {
+      return ((String) value).charAt(0);
+    }
+
+    throw new IllegalStateException("Unable to convert " + value + " to a char");
+  }
+
+  /**
+   * Parses the duration, either in the {@code 1d2h3m4s5ms} format, in the ISO-8601 format or as the plain number of milliseconds,
+   * which may also be a string without a unit.
+   */
+  static Duration toDuration(Object value) {
+    if (value instanceof Number) {
+      return Duration.ofMillis(toLong(value));
+    } else if (!(value instanceof String)) {
+      throw new IllegalStateException("Unable to convert " + value + " to a duration");
+    }
+
+    String stringValue = ((String) value).trim().toLowerCase(Locale.ROOT);
+    if (stringValue.startsWith("p") || stringValue.startsWith("-p")) {
+      return Duration.parse(stringValue.toUpperCase(Locale.ROOT));
+    }
+
+    boolean negative = stringValue.startsWith("-");
+    int position = negative ? 1 : 0;
+    int length = stringValue.length();
+    if (position == length) {
+      throw new IllegalStateException("Unable to convert " + value + " to a duration");
+    }
+
+    int digitsEnd = position;
+    while (digitsEnd < length && Character.isDigit(stringValue.charAt(digitsEnd))) {
+      ++digitsEnd;
+    }
+
+    if (digitsEnd == length) {
+      return Duration.ofMillis(Long.parseLong(stringValue)); // Unitless strings are the same as the numeric nodes.
+    }
+
+    long millis = 0;
+    while (position < length) {
+      int numberStart = position;
+      while (position < length && Character.isDigit(stringValue.charAt(position))) {
+        ++position;
+      }
+
+      int unitStart = position;
+      while (position < length && Character.isLetter(stringValue.charAt(position))) {
+        ++position;
+      }
+
+      if (numberStart == unitStart) {
+        throw new IllegalStateException("Unable to convert " + value + " to a duration");
+      }
+
+      long amount = Long.parseLong(stringValue.substring(numberStart, unitStart));
+      millis = Math.addExact(millis, Math.multiplyExact(amount, durationUnit(stringValue.substring(unitStart, position), value)));
+    }
+
+    return Duration.ofMillis(negative ? -millis : millis);
+  }
+
+  /**
+   * Formats the duration in the format accepted by {@link #toDuration(Object)}, using the ISO-8601 format for the sub-millisecond durations.
+   */
+  static String formatDuration(Duration duration) {
+    if (duration.isZero()) {
+      return "0s";
+    }
+
+    long millis;
+    try {
+      millis = duration.toMillis();
+    } catch (ArithmeticException e) {
+      return duration.toString();
+    }
+
+    if (!Duration.ofMillis(millis).equals(duration) || millis == Long.MIN_VALUE) {
+      return duration.toString();
+    }
+
+    StringBuilder builder = new StringBuilder();
+    if (millis < 0) {
+      builder.append('-');
+      millis = -millis;
+    }
+
+    for (int i = 0; i < DURATION_UNITS.length; ++i) {
+      long amount = millis / DURATION_UNITS[i];
+      if (amount != 0) {
+        builder.append(amount).append(DURATION_SUFFIXES[i]);
+        millis -= amount * DURATION_UNITS[i];
+      }
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Parses the size, either as the plain number or with the binary unit suffix, e.g. {@code 64MB}, {@code 1.5GiB} or {@code 512K}.
+   */
+  static long parseSize(String value) {
+    String stringValue = value.trim();
+    int unitStart = stringValue.length();
+    while (unitStart > 0 && Character.isLetter(stringValue.charAt(unitStart - 1))) {
+      --unitStart;
+    }
+
+    BigDecimal amount;
+    try {
+      amount = new BigDecimal(stringValue.substring(0, unitStart).trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalStateException("Unable to convert " + value + " to a number", e);
+    }
+
+    if (unitStart != stringValue.length()) {
+      amount = amount.multiply(BigDecimal.valueOf(sizeUnit(stringValue.substring(unitStart), value)));
+    }
+
+    return exact(amount, value);
+  }
+
+  private static long toIntegral(Object value, long min, long max) {
+    long longValue = toLong(value);
+    if (longValue < min || longValue > max) {
+      throw new IllegalStateException("Value " + value + " is out of the [" + min + ", " + max + "] range");
+    }
+
+    return longValue;
+  }
+
+  private static BigDecimal toBigDecimal(Object value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    } else if (value instanceof BigInteger) {
+      return new BigDecimal((BigInteger) value);
+    } else if (value instanceof Double || value instanceof Float) {
+      return BigDecimal.valueOf(((Number) value).doubleValue());
+    } else {
+      return BigDecimal.valueOf(((Number) value).longValue());
+    }
+  }
+
+  private static long exact(BigDecimal amount, Object value) {
+    try {
+      return amount.longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalStateException("Value " + value + " is not an integer or is out of the long range", e);
+    }
+  }
+
+  private static long durationUnit(String unit, Object value) {
+    for (int i = 0; i < DURATION_SUFFIXES.length; ++i) {
+      if (DURATION_SUFFIXES[i].equals(unit)) {
+        return DURATION_UNITS[i];
+      }
+    }
+
+    throw new IllegalStateException("Unknown duration unit " + unit + " in " + value);
+  }
+
+  private static long sizeUnit(String unit, Object value) {
+    switch (unit.toUpperCase(Locale.ROOT)) {
+      case "B":
+        return 1L;
+      case "K":
+      case "KB":
+      case "KIB":
+        return 1L << 10;
+      case "M":
+      case "MB":
+      case "MIB":
+        return 1L << 20;
+      case "G":
+      case "GB":
+      case "GIB":
+        return 1L << 30;
+      case "T":
+      case "TB":
+      case "TIB":
+        return 1L << 40;
+      default:
+        throw new IllegalStateException("Unknown size unit " + unit + " in " + value);
+    }
+  }
+}
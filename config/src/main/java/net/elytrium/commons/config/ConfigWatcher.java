@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reloads the configs when their files are modified.
+ *
+ * <p>All the watched configs share one {@link WatchService} and one thread, the configs placed in the same directory share one watch key.
+ * Bursts of modifications are debounced, and the configs are only loaded, so the watched files are never rewritten.
+ * The configs are loaded and the listeners are called on the watcher thread.
+ */
+public final class ConfigWatcher implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConfigWatcher.class);
+
+  private final Map<Path, WatchedDirectory> directories = new ConcurrentHashMap<>();
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final WatchService watchService;
+  private final long debounceNanos;
+
+  public ConfigWatcher() throws IOException {
+    this(500, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates the watcher and starts its thread.
+   *
+   * @param debounce The time to wait for the next modification before reloading the config.
+   * @param unit     The unit of the debounce time.
+   */
+  public ConfigWatcher(long debounce, @NonNull TimeUnit unit) throws IOException {
+    this.watchService = FileSystems.getDefault().newWatchService();
+    this.debounceNanos = unit.toNanos(debounce);
+    Thread thread = new Thread(this::run, "Config Watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public void watch(@NonNull YamlConfig config, @NonNull Path configFile) throws IOException {
+    this.watch(config, configFile, null);
+  }
+
+  /**
+   * Starts watching the config file.
+   *
+   * @param prefix The prefix the config is loaded with on every reload, the same as in {@link YamlConfig#load(Path, String)}.
+   */
+  public void watch(@NonNull YamlConfig config, @NonNull Path configFile, @Nullable String prefix) throws IOException {
+    Path file = configFile.toAbsolutePath().normalize();
+    Path directory = file.getParent();
+    if (directory == null) {
+      throw new IllegalArgumentException("Config parent path is null for " + configFile);
+    }
+
+    synchronized (this.directories) {
+      WatchedDirectory watchedDirectory = this.directories.get(directory);
+      if (watchedDirectory == null) {
+        WatchKey key = directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirectory = new WatchedDirectory(key);
+        this.directories.put(directory, watchedDirectory);
+      }
+
+      watchedDirectory.configs.put(file.getFileName(), new WatchedConfig(config, file, prefix));
+    }
+  }
+
+  public void unwatch(@NonNull Path configFile) {
+    Path file = configFile.toAbsolutePath().normalize();
+    Path directory = file.getParent();
+    synchronized (this.directories) {
+      WatchedDirectory watchedDirectory = this.directories.get(directory);
+      if (watchedDirectory != null) {
+        watchedDirectory.configs.remove(file.getFileName());
+        if (watchedDirectory.configs.isEmpty()) {
+          watchedDirectory.key.cancel();
+          this.directories.remove(directory);
+        }
+      }
+    }
+  }
+
+  public void addListener(@NonNull Listener listener) {
+    this.listeners.add(listener);
+  }
+
+  public void removeListener(@NonNull Listener listener) {
+    this.listeners.remove(listener);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.watchService.close();
+    this.directories.clear();
+  }
+
+  private void run() {
+    Map<WatchedConfig, Long> pending = new HashMap<>();
+    while (true) {
+      WatchKey key;
+      try {
+        if (pending.isEmpty()) {
+          key = this.watchService.take();
+        } else {
+          long now = System.nanoTime();
+          long wait = Long.MAX_VALUE;
+          for (long deadline : pending.values()) {
+            wait = Math.min(wait, deadline - now);
+          }
+
+          key = wait > 0 ? this.watchService.poll(wait, TimeUnit.NANOSECONDS) : this.watchService.poll();
+        }
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+
+      if (key != null) {
+        long deadline = System.nanoTime() + this.debounceNanos;
+        for (WatchedConfig config : this.getAffectedConfigs((Path) key.watchable(), key.pollEvents())) {
+          pending.put(config, deadline);
+        }
+
+        key.reset();
+      }
+
+      long now = System.nanoTime();
+      Iterator<Map.Entry<WatchedConfig, Long>> iterator = pending.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<WatchedConfig, Long> entry = iterator.next();
+        if (entry.getValue() - now <= 0) {
+          iterator.remove();
+          this.reload(entry.getKey());
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the watched configs of the directory modified by the events, all of them if some events were lost.
+   */
+  Collection<WatchedConfig> getAffectedConfigs(Path directory, List<WatchEvent<?>> events) {
+    WatchedDirectory watchedDirectory = this.directories.get(directory);
+    if (watchedDirectory == null) {
+      return Collections.emptyList();
+    }
+
+    Set<WatchedConfig> configs = new LinkedHashSet<>();
+    for (WatchEvent<?> event : events) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        configs.addAll(watchedDirectory.configs.values());
+      } else {
+        WatchedConfig config = watchedDirectory.configs.get((Path) event.context());
+        if (config != null) {
+          configs.add(config);
+        }
+      }
+    }
+
+    return configs;
+  }
+
+  private void reload(WatchedConfig watchedConfig) {
+    Path file = watchedConfig.file;
+    if (!Files.exists(file) || !this.isWatched(watchedConfig)) {
+      return;
+    }
+
+    YamlConfig config = watchedConfig.config;
+    YamlConfig.LoadResult result;
+    try {
+      result = config.load(file, watchedConfig.prefix);
+    } catch (Throwable t) {
+      LOGGER.warn("Unable to reload config {}", file, t);
+      for (Listener listener : this.listeners) {
+        try {
+          listener.onFailure(config, file, t);
+        } catch (Throwable listenerThrowable) {
+          LOGGER.warn("Unable to handle the reload failure of {}", file, listenerThrowable);
+        }
+      }
+
+      return;
+    }
+
+    for (Listener listener : this.listeners) {
+      try {
+        listener.onReload(config, file, result);
+      } catch (Throwable t) {
+        LOGGER.warn("Unable to handle the reload of {}", file, t);
+      }
+    }
+  }
+
+  private boolean isWatched(WatchedConfig watchedConfig) {
+    WatchedDirectory watchedDirectory = this.directories.get(watchedConfig.file.getParent());
+    return watchedDirectory != null && watchedDirectory.configs.get(watchedConfig.file.getFileName()) == watchedConfig;
+  }
+
+  public interface Listener {
+
+    void onReload(YamlConfig config, Path configFile, YamlConfig.LoadResult result);
+
+    default void onFailure(YamlConfig config, Path configFile, Throwable cause) {
+
+    }
+  }
+
+  private static final class WatchedDirectory {
+
+    private final WatchKey key;
+    private final Map<Path, WatchedConfig> configs = new ConcurrentHashMap<>();
+
+    private WatchedDirectory(WatchKey key) {
+      this.key = key;
+    }
+  }
+
+  static final class WatchedConfig {
+
+    private final YamlConfig config;
+    private final Path file;
+    @Nullable
+    private final String prefix;
+
+    private WatchedConfig(YamlConfig config, Path file, @Nullable String prefix) {
+      this.config = config;
+      this.file = file;
+      this.prefix = prefix;
+    }
+
+    Path getFile() {
+      return this.file;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+/**
+ * Reads and writes the value of a single config field.
+ */
+interface FieldAccessor {
+
+  Object get(Object owner);
+
+  void set(Object owner, Object value);
+
+  /**
+   * Writes the value to the int field, the accessors that can't write primitives directly box it.
+   */
+  default void setInt(Object owner, int value) {
+    this.set(owner, value);
+  }
+
+  default void setLong(Object owner, long value) {
+    this.set(owner, value);
+  }
+
+  default void setDouble(Object owner, double value) {
+    this.set(owner, value);
+  }
+
+  default void setFloat(Object owner, float value) {
+    this.set(owner, value);
+  }
+
+  default void setBoolean(Object owner, boolean value) {
+    this.set(owner, value);
+  }
+
+  default void setShort(Object owner, short value) {
+    this.set(owner, value);
+  }
+
+  default void setByte(Object owner, byte value) {
+    this.set(owner, value);
+  }
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON documents, read with a streaming parser and written with two-space indentation.
+ */
+final class JsonConfigFormat implements ConfigFormat {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  @Nullable
+  @Override
+  public Object read(InputStream input) throws IOException {
+    return new Parser(new InputStreamReader(input, StandardCharsets.UTF_8)).readDocument();
+  }
+
+  @Override
+  public void write(OutputStream output, @Nullable Object document) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    this.writeValue(writer, document, 0);
+    writer.write(System.lineSeparator());
+    writer.flush();
+  }
+
+  private void writeValue(Writer writer, @Nullable Object value, int indent) throws IOException {
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      if (map.isEmpty()) {
+        writer.write("{}");
+        return;
+      }
+
+      writer.write('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        first = this.writeSeparator(writer, first, indent + 2);
+        this.writeString(writer, String.valueOf(entry.getKey()));
+        writer.write(": ");
+        this.writeValue(writer, entry.getValue(), indent + 2);
+      }
+
+      this.writeLineBreak(writer, indent);
+      writer.write('}');
+    } else if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      if (collection.isEmpty()) {
+        writer.write("[]");
+        return;
+      }
+
+      writer.write('[');
+      boolean first = true;
+      for (Object element : collection) {
+        first = this.writeSeparator(writer, first, indent + 2);
+        this.writeValue(writer, element, indent + 2);
+      }
+
+      this.writeLineBreak(writer, indent);
+      writer.write(']');
+    } else if (value == null || value instanceof Boolean) {
+      writer.write(String.valueOf(value));
+    } else if (value instanceof Double || value instanceof Float) {
+      double doubleValue = ((Number) value).doubleValue();
+      if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+        // JSON has no literals for these, the binding parses them back from the strings.
+        this.writeString(writer, value.toString());
+      } else {
+        writer.write(value.toString());
+      }
+    } else if (value instanceof Integer || value instanceof Long || value instanceof BigInteger
+        || value instanceof Short || value instanceof Byte) {
+      writer.write(value.toString());
+    } else {
+      this.writeString(writer, String.valueOf(value));
+    }
+  }
+
+  private boolean writeSeparator(Writer writer, boolean first, int indent) throws IOException {
+    if (!first) {
+      writer.write(',');
+    }
+
+    this.writeLineBreak(writer, indent);
+    return false;
+  }
+
+  private void writeLineBreak(Writer writer, int indent) throws IOException {
+    writer.write(System.lineSeparator());
+    for (int i = 0; i < indent; ++i) {
+      writer.write(' ');
+    }
+  }
+
+  private void writeString(Writer writer, String value) throws IOException {
+    writer.write('"');
+    int start = 0;
+    int length = value.length();
+    for (int i = 0; i < length; ++i) {
+      char character = value.charAt(i);
+      if (character >= 0x20 && character != '"' && character != '\\') {
+        continue;
+      }
+
+      writer.write(value, start, i - start);
+      start = i + 1;
+      switch (character) {
+        case '"':
+          writer.write("\\\"");
+          break;
+        case '\\':
+          writer.write("\\\\");
+          break;
+        case '\n':
+          writer.write("\\n");
+          break;
+        case '\r':
+          writer.write("\\r");
+          break;
+        case '\t':
+          writer.write("\\t");
+          break;
+        case '\b':
+          writer.write("\\b");
+          break;
+        case '\f':
+          writer.write("\\f");
+          break;
+        default:
+          writer.write("\\u00");
+          writer.write(HEX_DIGITS[character >> 4]);
+          writer.write(HEX_DIGITS[character & 0xF]);
+          break;
+      }
+    }
+
+    writer.write(value, start, length - start);
+    writer.write('"');
+  }
+
+  /**
+   * Recursive descent parser reading the input through its own buffer.
+   */
+  private static final class Parser {
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder token = new StringBuilder();
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int lineStart;
+    private int consumed;
+
+    private Parser(Reader reader) {
+      this.reader = reader;
+    }
+
+    @Nullable
+    private Object readDocument() throws IOException {
+      int next = this.peekNonWhitespace();
+      if (next == '\uFEFF') {
+        ++this.position;
+        next = this.peekNonWhitespace();
+      }
+
+      if (next == -1) {
+        return null;
+      }
+
+      Object document = this.readValue();
+      if (this.peekNonWhitespace() != -1) {
+        throw this.error("Unexpected data after the document");
+      }
+
+      return document;
+    }
+
+    @Nullable
+    private Object readValue() throws IOException {
+      int next = this.peekNonWhitespace();
+      switch (next) {
+        case '{':
+          ++this.position;
+          return this.readObject();
+        case '[':
+          ++this.position;
+          return this.readArray();
+        case '"':
+          ++this.position;
+          return this.readString();
+        case 't':
+          this.expectLiteral("true");
+          return Boolean.TRUE;
+        case 'f':
+          this.expectLiteral("false");
+          return Boolean.FALSE;
+        case 'n':
+          this.expectLiteral("null");
+          return null;
+        case -1:
+          throw this.error("Unexpected end of the document");
+        default:
+          if (next == '-' || (next >= '0' && next <= '9')) {
+            return this.readNumber();
+          }
+
+          throw this.error("Unexpected character '" + (char) next + "'");
+      }
+    }
+
+    private Map<String, Object> readObject() throws IOException {
+      Map<String, Object> map = new LinkedHashMap<>();
+      if (this.peekNonWhitespace() == '}') {
+        ++this.position;
+        return map;
+      }
+
+      while (true) {
+        if (this.peekNonWhitespace() != '"') {
+          throw this.error("Expected a string key");
+        }
+
+        ++this.position;
+        String key = this.readString();
+        this.expect(':');
+        map.put(key, this.readValue());
+        if (this.nextSeparator('}')) {
+          return map;
+        }
+      }
+    }
+
+    private List<Object> readArray() throws IOException {
+      List<Object> list = new ArrayList<>();
+      if (this.peekNonWhitespace() == ']') {
+        ++this.position;
+        return list;
+      }
+
+      while (true) {
+        list.add(this.readValue());
+        if (this.nextSeparator(']')) {
+          return list;
+        }
+      }
+    }
+
+    /**
+     * Reads either a comma or the closing bracket.
+     *
+     * @return Whether the closing bracket was read.
+     */
+    private boolean nextSeparator(char close) throws IOException {
+      int next = this.peekNonWhitespace();
+      if (next == ',') {
+        ++this.position;
+        return false;
+      } else if (next == close) {
+        ++this.position;
+        return true;
+      }
+
+      throw this.error("Expected ',' or '" + close + "'");
+    }
+
+    private String readString() throws IOException {
+      StringBuilder builder = this.token;
+      builder.setLength(0);
+      while (true) {
+        if (this.position == this.limit && !this.fill()) {
+          throw this.error("Unterminated string");
+        }
+
+        int start = this.position;
+        while (this.position < this.limit) {
+          char character = this.buffer[this.position];
+          if (character == '"' || character == '\\' || character < 0x20) {
+            break;
+          }
+
+          ++this.position;
+        }
+
+        builder.append(this.buffer, start, this.position - start);
+        if (this.position == this.limit) {
+          continue;
+        }
+
+        char character = this.buffer[this.position++];
+        if (character == '"') {
+          return builder.toString();
+        } else if (character == '\\') {
+          builder.append(this.readEscape());
+        } else {
+          throw this.error("Unescaped control character in a string");
+        }
+      }
+    }
+
+    private char readEscape() throws IOException {
+      int escape = this.read();
+      switch (escape) {
+        case '"':
+        case '\\':
+        case '/':
+          return (char) escape;
+        case 'b':
+          return '\b';
+        case 'f':
+          return '\f';
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 't':
+          return '\t';
+        case 'u': {
+          int value = 0;
+          for (int i = 0; i < 4; ++i) {
+            int digit = Character.digit(this.read(), 16);
+            if (digit == -1) {
+              throw this.error("Invalid unicode escape");
+            }
+
+            value = (value << 4) | digit;
+          }
+
+          return (char) value;
+        }
+        default:
+          throw this.error("Invalid escape sequence");
+      }
+    }
+
+    private Number readNumber() throws IOException {
+      StringBuilder builder = this.token;
+      builder.setLength(0);
+      boolean decimal = false;
+      while (true) {
+        int next = this.peek();
+        if ((next >= '0' && next <= '9') || next == '-' || next == '+') {
+          builder.append((char) next);
+        } else if (next == '.' || next == 'e' || next == 'E') {
+          builder.append((char) next);
+          decimal = true;
+        } else {
+          break;
+        }
+
+        ++this.position;
+      }
+
+      String number = builder.toString();
+      try {
+        if (decimal) {
+          return Double.valueOf(number);
+        }
+
+        BigInteger value = new BigInteger(number);
+        if (value.bitLength() < Integer.SIZE) {
+          return value.intValue();
+        } else if (value.bitLength() < Long.SIZE) {
+          return value.longValue();
+        } else {
+          return value;
+        }
+      } catch (NumberFormatException e) {
+        throw this.error("Invalid number " + number);
+      }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+      for (int i = 0; i < literal.length(); ++i) {
+        if (this.read() != literal.charAt(i)) {
+          throw this.error("Expected " + literal);
+        }
+      }
+    }
+
+    private void expect(char expected) throws IOException {
+      if (this.peekNonWhitespace() != expected) {
+        throw this.error("Expected '" + expected + "'");
+      }
+
+      ++this.position;
+    }
+
+    private int read() throws IOException {
+      int next = this.peek();
+      if (next != -1) {
+        ++this.position;
+      }
+
+      return next;
+    }
+
+    private int peek() throws IOException {
+      if (this.position == this.limit && !this.fill()) {
+        return -1;
+      }
+
+      return this.buffer[this.position];
+    }
+
+    private int peekNonWhitespace() throws IOException {
+      while (true) {
+        int next = this.peek();
+        if (next == '\n') {
+          ++this.line;
+          this.lineStart = this.consumed + this.position + 1;
+        } else if (next != ' ' && next != '\t' && next != '\r') {
+          return next;
+        }
+
+        ++this.position;
+      }
+    }
+
+    private boolean fill() throws IOException {
+      this.consumed += this.limit;
+      this.position = 0;
+      this.limit = 0;
+      int read = this.reader.read(this.buffer);
+      if (read <= 0) {
+        return false;
+      }
+
+      this.limit = read;
+      return true;
+    }
+
+    private IOException error(String message) {
+      return new IOException(message + " at line " + this.line + " column " + (this.consumed + this.position - this.lineStart + 1));
+    }
+  }
+}
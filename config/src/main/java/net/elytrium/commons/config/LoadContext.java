@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * State of a single config load, published to the config only when the load succeeds.
+ */
+final class LoadContext {
+
+  private final String now;
+  private final Deque<String> path = new ArrayDeque<>();
+  private final List<Object> placeholders = new ArrayList<>();
+  private final Map<String, String> rawValues = new IdentityHashMap<>();
+  private final List<LoadReport.Failure> failures = new ArrayList<>();
+  private final Set<Object> shared;
+  private final ConfigMacros macros;
+  @Nullable
+  private String prefix;
+  @Nullable
+  private Path backupFile;
+  private int keyCount;
+  private int unknownKeyCount;
+  private long parseNanos;
+  private long fileSize;
+
+  LoadContext(@Nullable String prefix, ConfigMacros macros) {
+    String now = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME).replace("T", "_").replace(":", ".");
+    this.now = now.substring(0, now.lastIndexOf("."));
+    this.prefix = prefix;
+    this.macros = macros;
+    this.shared = Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  private LoadContext(LoadContext parent) {
+    this.now = parent.now;
+    this.prefix = parent.prefix;
+    this.macros = parent.macros;
+    this.path.addAll(parent.path);
+    // Only read by the forks, as the node sequences they bind are never shared.
+    this.shared = parent.shared;
+  }
+
+  /**
+   * Creates a context for binding a part of the current node on another thread, starting at the current path.
+   * Its state should be merged back with {@link #join(LoadContext)} after the binding is completed.
+   */
+  LoadContext fork() {
+    return new LoadContext(this);
+  }
+
+  /**
+   * Marks the section as shared with the published instance, so it's copied before the loaded values are bound into it.
+   */
+  void share(Object section) {
+    this.shared.add(section);
+  }
+
+  boolean isShared(Object section) {
+    return this.shared.contains(section);
+  }
+
+  void join(LoadContext fork) {
+    this.placeholders.addAll(fork.placeholders);
+    this.rawValues.putAll(fork.rawValues);
+    this.failures.addAll(fork.failures);
+    this.keyCount += fork.keyCount;
+    this.unknownKeyCount += fork.unknownKeyCount;
+  }
+
+  /**
+   * Gets the load time, used in the names of the config copies.
+   */
+  String getNow() {
+    return this.now;
+  }
+
+  ConfigMacros getMacros() {
+    return this.macros;
+  }
+
+  @Nullable
+  String getPrefix() {
+    return this.prefix;
+  }
+
+  void setPrefix(@Nullable String prefix) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * Gets the values registered in {@link Placeholders} during this load.
+   */
+  List<Object> getPlaceholders() {
+    return this.placeholders;
+  }
+
+  /**
+   * Gets the values before the macro expansion, keyed by the expanded values.
+   */
+  Map<String, String> getRawValues() {
+    return this.rawValues;
+  }
+
+  /**
+   * Records the failure of the current node.
+   */
+  void addFailure(@Nullable Object value, Throwable cause) {
+    this.failures.add(new LoadReport.Failure(this.getPath(), value == null ? null : value.getClass(), cause));
+  }
+
+  List<LoadReport.Failure> getFailures() {
+    return this.failures;
+  }
+
+  void setBackupFile(@Nullable Path backupFile) {
+    this.backupFile = backupFile;
+  }
+
+  LoadReport getReport() {
+    return this.failures.isEmpty() ? LoadReport.EMPTY : new LoadReport(new ArrayList<>(this.failures), this.backupFile);
+  }
+
+  void push(String nodeName) {
+    this.path.addLast(nodeName);
+    ++this.keyCount;
+  }
+
+  int getKeyCount() {
+    return this.keyCount;
+  }
+
+  void addUnknownKey() {
+    ++this.unknownKeyCount;
+  }
+
+  int getUnknownKeyCount() {
+    return this.unknownKeyCount;
+  }
+
+  /**
+   * Gets the time spent in the parser, measured only if there are metrics listeners.
+   */
+  long getParseNanos() {
+    return this.parseNanos;
+  }
+
+  void addParseNanos(long parseNanos) {
+    this.parseNanos += parseNanos;
+  }
+
+  long getFileSize() {
+    return this.fileSize;
+  }
+
+  void setFileSize(long fileSize) {
+    this.fileSize = fileSize;
+  }
+
+  void pop() {
+    this.path.removeLast();
+  }
+
+  String getNodeName() {
+    return this.path.getLast();
+  }
+
+  /**
+   * Whether the current node is placed in the root of the config.
+   */
+  boolean isRoot() {
+    return this.path.size() == 1;
+  }
+
+  /**
+   * Joins the current node path, should be used only for logging.
+   */
+  String getPath() {
+    return String.join(".", this.path);
+  }
+}
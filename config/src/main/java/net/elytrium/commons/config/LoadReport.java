@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Options that couldn't be bound during a config load, which kept their default values.
+ */
+public final class LoadReport {
+
+  static final LoadReport EMPTY = new LoadReport(Collections.emptyList(), null);
+
+  private final List<Failure> failures;
+  @Nullable
+  private final Path backupFile;
+
+  LoadReport(List<Failure> failures, @Nullable Path backupFile) {
+    this.failures = Collections.unmodifiableList(failures);
+    this.backupFile = backupFile;
+  }
+
+  /**
+   * Gets the failed options in the order they were bound.
+   */
+  public List<Failure> getFailures() {
+    return this.failures;
+  }
+
+  public boolean hasFailures() {
+    return !this.failures.isEmpty();
+  }
+
+  /**
+   * Gets the copy of the config file made if some options were not bound, null if there were no failures or the copy couldn't be made.
+   */
+  @Nullable
+  public Path getBackupFile() {
+    return this.backupFile;
+  }
+
+  @Override
+  public String toString() {
+    return "LoadReport{failures=" + this.failures + ", backupFile=" + this.backupFile + "}";
+  }
+
+  /**
+   * A single option that couldn't be bound.
+   */
+  public static final class Failure {
+
+    private final String path;
+    @Nullable
+    private final Class<?> valueType;
+    private final Throwable cause;
+
+    Failure(String path, @Nullable Class<?> valueType, Throwable cause) {
+      this.path = path;
+      this.valueType = valueType;
+      this.cause = cause;
+    }
+
+    /**
+     * Gets the config node path, joined with dots.
+     */
+    public String getPath() {
+      return this.path;
+    }
+
+    /**
+     * Gets the type of the loaded value, null for the null values and the sections.
+     */
+    @Nullable
+    public Class<?> getValueType() {
+      return this.valueType;
+    }
+
+    public Throwable getCause() {
+      return this.cause;
+    }
+
+    @Override
+    public String toString() {
+      return this.path + " (" + (this.valueType == null ? "null" : this.valueType.getSimpleName()) + "): " + this.cause;
+    }
+  }
+}
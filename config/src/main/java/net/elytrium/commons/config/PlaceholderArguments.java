@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reusable placeholder values, the primitive values are stored without boxing.
+ *
+ * <p>The instance is not thread-safe, it may be kept per thread and cleared before formatting the next message.
+ */
+public final class PlaceholderArguments {
+
+  private static final byte OBJECT = 0;
+  private static final byte LONG = 1;
+  private static final byte DOUBLE = 2;
+  private static final byte FLOAT = 3;
+  private static final byte BOOLEAN = 4;
+  private static final byte CHAR = 5;
+
+  private Object[] objects;
+  private long[] primitives;
+  private byte[] types;
+  private int size;
+
+  public PlaceholderArguments() {
+    this(8);
+  }
+
+  public PlaceholderArguments(int capacity) {
+    this.objects = new Object[capacity];
+    this.primitives = new long[capacity];
+    this.types = new byte[capacity];
+  }
+
+  public PlaceholderArguments set(int index, Object value) {
+    this.prepare(index, OBJECT);
+    this.objects[index] = value;
+    return this;
+  }
+
+  public PlaceholderArguments set(int index, int value) {
+    return this.set(index, (long) value);
+  }
+
+  public PlaceholderArguments set(int index, long value) {
+    this.prepare(index, LONG);
+    this.primitives[index] = value;
+    return this;
+  }
+
+  public PlaceholderArguments set(int index, double value) {
+    this.prepare(index, DOUBLE);
+    this.primitives[index] = Double.doubleToRawLongBits(value);
+    return this;
+  }
+
+  public PlaceholderArguments set(int index, float value) {
+    this.prepare(index, FLOAT);
+    this.primitives[index] = Float.floatToRawIntBits(value);
+    return this;
+  }
+
+  public PlaceholderArguments set(int index, boolean value) {
+    this.prepare(index, BOOLEAN);
+    this.primitives[index] = value ? 1 : 0;
+    return this;
+  }
+
+  public PlaceholderArguments set(int index, char value) {
+    this.prepare(index, CHAR);
+    this.primitives[index] = value;
+    return this;
+  }
+
+  /**
+   * Gets the amount of the values, the placeholders with greater indexes are left as is.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  public PlaceholderArguments clear() {
+    Arrays.fill(this.objects, 0, this.size, null);
+    this.size = 0;
+    return this;
+  }
+
+  void appendTo(Appendable out, int index) throws IOException {
+    long primitive = this.primitives[index];
+    if (out instanceof StringBuilder) {
+      StringBuilder builder = (StringBuilder) out;
+      switch (this.types[index]) {
+        case LONG: {
+          builder.append(primitive);
+          return;
+        }
+        case DOUBLE: {
+          builder.append(Double.longBitsToDouble(primitive));
+          return;
+        }
+        case FLOAT: {
+          builder.append(Float.intBitsToFloat((int) primitive));
+          return;
+        }
+        case BOOLEAN: {
+          builder.append(primitive != 0);
+          return;
+        }
+        case CHAR: {
+          builder.append((char) primitive);
+          return;
+        }
+        default: {
+          break;
+        }
+      }
+    } else {
+      switch (this.types[index]) {
+        case LONG: {
+          out.append(Long.toString(primitive));
+          return;
+        }
+        case DOUBLE: {
+          out.append(Double.toString(Double.longBitsToDouble(primitive)));
+          return;
+        }
+        case FLOAT: {
+          out.append(Float.toString(Float.intBitsToFloat((int) primitive)));
+          return;
+        }
+        case BOOLEAN: {
+          out.append(primitive != 0 ? "true" : "false");
+          return;
+        }
+        case CHAR: {
+          out.append((char) primitive);
+          return;
+        }
+        default: {
+          break;
+        }
+      }
+    }
+
+    PlaceholderTemplate.appendValue(out, this.objects[index]);
+  }
+
+  private void prepare(int index, byte type) {
+    if (index >= this.types.length) {
+      int capacity = Math.max(index + 1, this.types.length * 2);
+      this.objects = Arrays.copyOf(this.objects, capacity);
+      this.primitives = Arrays.copyOf(this.primitives, capacity);
+      this.types = Arrays.copyOf(this.types, capacity);
+    }
+
+    // Unset values between the previous size and the index are rendered as null, the same as with the varargs.
+    for (int i = this.size; i < index; ++i) {
+      this.types[i] = OBJECT;
+    }
+
+    this.objects[index] = null;
+    this.types[index] = type;
+    this.size = Math.max(this.size, index + 1);
+  }
+}
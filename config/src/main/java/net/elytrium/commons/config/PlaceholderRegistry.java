@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent registry of the placeholder templates, weakly keyed by the identity of the values.
+ *
+ * <p>The lookups are lock-free, and the entries of the values collected without being removed are expunged on the next modification.
+ */
+final class PlaceholderRegistry {
+
+  private final Map<Object, PlaceholderTemplate> templates = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+  @Nullable
+  PlaceholderTemplate get(Object value) {
+    return this.templates.get(new LookupKey(value));
+  }
+
+  void put(Object value, PlaceholderTemplate template) {
+    this.expunge();
+    this.templates.put(new WeakKey(value, this.queue), template);
+  }
+
+  void remove(Object value) {
+    this.expunge();
+    this.templates.remove(new LookupKey(value));
+  }
+
+  /**
+   * Removes the templates of all the values with the specified identity hash code.
+   */
+  void removeByHash(int hash) {
+    this.expunge();
+    this.templates.keySet().removeIf(key -> key.hashCode() == hash);
+  }
+
+  int size() {
+    this.expunge();
+    return this.templates.size();
+  }
+
+  private void expunge() {
+    Reference<?> reference;
+    while ((reference = this.queue.poll()) != null) {
+      this.templates.remove(reference);
+    }
+  }
+
+  private static final class WeakKey extends WeakReference<Object> {
+
+    private final int hash;
+
+    private WeakKey(Object value, ReferenceQueue<Object> queue) {
+      super(value, queue);
+      this.hash = System.identityHashCode(value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      Object value = this.get();
+      return value != null && o instanceof WeakKey && ((WeakKey) o).get() == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+
+  private static final class LookupKey {
+
+    private final Object value;
+
+    private LookupKey(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof WeakKey) {
+        return ((WeakKey) o).get() == this.value;
+      }
+
+      return o instanceof LookupKey && ((LookupKey) o).value == this.value;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this.value);
+    }
+  }
+}
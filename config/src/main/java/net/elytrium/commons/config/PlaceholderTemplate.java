@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * String with placeholders, split once into the literal segments and the placeholder slots.
+ */
+final class PlaceholderTemplate {
+
+  private final String[] names;
+  private final String[] literals;
+  private final int[] slots;
+  private final int literalsLength;
+
+  private PlaceholderTemplate(String[] names, String[] literals, int[] slots, int literalsLength) {
+    this.names = names;
+    this.literals = literals;
+    this.slots = slots;
+    this.literalsLength = literalsLength;
+  }
+
+  /**
+   * Splits the value by the placeholders.
+   *
+   * @param value The value.
+   * @param names The placeholder names in the {@code {NAME}} format, the slot of every placeholder is its index.
+   */
+  static PlaceholderTemplate compile(String value, String[] names) {
+    List<String> literals = new ArrayList<>();
+    List<Integer> slots = new ArrayList<>();
+    int literalsLength = 0;
+    int start = 0;
+    int position = value.indexOf('{');
+    while (position != -1) {
+      int slot = findSlot(value, position, names);
+      if (slot == -1) {
+        position = value.indexOf('{', position + 1);
+      } else {
+        literals.add(value.substring(start, position));
+        literalsLength += position - start;
+        slots.add(slot);
+        start = position + names[slot].length();
+        position = value.indexOf('{', start);
+      }
+    }
+
+    literals.add(value.substring(start));
+    literalsLength += value.length() - start;
+    return new PlaceholderTemplate(names, literals.toArray(new String[0]), slots.stream().mapToInt(Integer::intValue).toArray(), literalsLength);
+  }
+
+  private static int findSlot(String value, int position, String[] names) {
+    for (int i = 0; i < names.length; ++i) {
+      if (value.startsWith(names[i], position)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  String[] getNames() {
+    return this.names;
+  }
+
+  /**
+   * Renders the template, the placeholders without values are left as is.
+   */
+  String render(Object[] values) {
+    StringBuilder builder = new StringBuilder(this.estimateLength());
+    try {
+      this.render((Appendable) builder, values);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // StringBuilder doesn't throw IOException.
+    }
+
+    return builder.toString();
+  }
+
+  void render(Appendable out, Object[] values) throws IOException {
+    out.append(this.literals[0]);
+    for (int i = 0; i < this.slots.length; ++i) {
+      int slot = this.slots[i];
+      if (slot < values.length) {
+        appendValue(out, values[slot]);
+      } else {
+        out.append(this.names[slot]);
+      }
+
+      out.append(this.literals[i + 1]);
+    }
+  }
+
+  void render(Appendable out, PlaceholderArguments arguments) throws IOException {
+    out.append(this.literals[0]);
+    for (int i = 0; i < this.slots.length; ++i) {
+      int slot = this.slots[i];
+      if (slot < arguments.size()) {
+        arguments.appendTo(out, slot);
+      } else {
+        out.append(this.names[slot]);
+      }
+
+      out.append(this.literals[i + 1]);
+    }
+  }
+
+  /**
+   * Renders the template, resolving the values by the placeholder names in the {@code {NAME}} format.
+   * The placeholders resolved to null are left as is.
+   */
+  void render(Appendable out, Function<String, ?> resolver) throws IOException {
+    out.append(this.literals[0]);
+    for (int i = 0; i < this.slots.length; ++i) {
+      String name = this.names[this.slots[i]];
+      Object value = resolver.apply(name);
+      if (value != null) {
+        appendValue(out, value);
+      } else {
+        out.append(name);
+      }
+
+      out.append(this.literals[i + 1]);
+    }
+  }
+
+  /**
+   * Gets the expected length of the rendered template.
+   */
+  int estimateLength() {
+    return this.literalsLength + this.slots.length * 8;
+  }
+
+  static void appendValue(Appendable out, Object value) throws IOException {
+    if (value instanceof CharSequence) {
+      out.append((CharSequence) value);
+    } else if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(value);
+    } else {
+      out.append(String.valueOf(value));
+    }
+  }
+}
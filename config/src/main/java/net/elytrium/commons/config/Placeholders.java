@@ -17,9 +17,10 @@
 
 package net.elytrium.commons.config;
 
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
@@ -29,44 +30,122 @@ public class Placeholders {
   private static final Pattern LOWERCASE = Pattern.compile("^(?!-)[a-z\\d-]+(?<!-)$");
   private static final Pattern UPPERCASE = Pattern.compile("^(?!_)[A-Z\\d_]+(?<!_)$");
 
-  static final Map<Integer, String[]> placeholders = new HashMap<>();
+  static final PlaceholderRegistry placeholders = new PlaceholderRegistry();
 
   public static String[] getPlaceholders(Object value) {
-    int hashCode = System.identityHashCode(value);
-    if (!placeholders.containsKey(hashCode)) {
+    return getTemplate(value).getNames();
+  }
+
+  private static PlaceholderTemplate getTemplate(Object value) {
+    PlaceholderTemplate template = placeholders.get(value);
+    if (template == null) {
       throw new IllegalStateException("Invalid input");
     }
-    return placeholders.get(hashCode);
+    return template;
   }
 
+  /**
+   * Registers the placeholders of the value, the value is identified by its identity and is weakly referenced.
+   *
+   * @return The identity hash code of the value.
+   */
   public static int addPlaceholders(Object value, String... placeholders) {
-    int hashCode = System.identityHashCode(value);
-    Placeholders.placeholders.put(hashCode, Stream.of(placeholders).map(Placeholders::toPlaceholderName).toArray(String[]::new));
-    return hashCode;
+    String[] names = Stream.of(placeholders).map(Placeholders::toPlaceholderName).toArray(String[]::new);
+    Placeholders.placeholders.put(value, PlaceholderTemplate.compile(String.valueOf(value), names));
+    return System.identityHashCode(value);
   }
 
   public static void removePlaceholders(Object value) {
-    removePlaceholders(System.identityHashCode(value));
+    placeholders.remove(value);
   }
 
+  /**
+   * Removes the placeholders of all the values with the specified identity hash code.
+   *
+   * @deprecated Different values may have the same identity hash code, use {@link #removePlaceholders(Object)} instead.
+   */
+  @Deprecated
   public static void removePlaceholders(int hash) {
-    placeholders.remove(hash);
+    placeholders.removeByHash(hash);
   }
 
   public static boolean hasPlaceholders(Object value) {
-    return placeholders.containsKey(System.identityHashCode(value));
+    return placeholders.get(value) != null;
   }
 
   public static String replace(String value, Object... values) {
-    String[] placeholders = getPlaceholders(value);
-    String stringValue = value;
-    for (int i = 0; i < Math.min(placeholders.length, values.length); i++) {
-      stringValue = stringValue.replace(toPlaceholderName(placeholders[i]), String.valueOf(values[i]));
+    return getTemplate(value).render(values);
+  }
+
+  public static String replace(String value, PlaceholderArguments arguments) {
+    PlaceholderTemplate template = getTemplate(value);
+    return replaceTo(new StringBuilder(template.estimateLength()), value, arguments).toString();
+  }
+
+  /**
+   * Replaces the placeholders with the values resolved by their names, the placeholders resolved to null are left as is.
+   *
+   * @param value    The value with the registered placeholders.
+   * @param resolver The resolver, called with the placeholder names in the {@code {NAME}} format for every placeholder occurrence.
+   */
+  public static String replaceResolved(String value, Function<String, ?> resolver) {
+    PlaceholderTemplate template = getTemplate(value);
+    return replaceResolvedTo(new StringBuilder(template.estimateLength()), value, resolver).toString();
+  }
+
+  /**
+   * Replaces the placeholders with the named values.
+   *
+   * @param value     The value with the registered placeholders.
+   * @param arguments The values keyed by the placeholder names in the {@code {NAME}} format.
+   */
+  public static String replaceNamed(String value, Map<String, ?> arguments) {
+    return replaceResolved(value, arguments::get);
+  }
+
+  public static StringBuilder replaceTo(StringBuilder builder, String value, Object... values) {
+    try {
+      getTemplate(value).render(builder, values);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // StringBuilder doesn't throw IOException.
     }
-    return stringValue;
+
+    return builder;
+  }
+
+  public static StringBuilder replaceTo(StringBuilder builder, String value, PlaceholderArguments arguments) {
+    try {
+      getTemplate(value).render(builder, arguments);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return builder;
+  }
+
+  public static StringBuilder replaceResolvedTo(StringBuilder builder, String value, Function<String, ?> resolver) {
+    try {
+      getTemplate(value).render(builder, resolver);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    return builder;
+  }
+
+  public static void replaceTo(Appendable out, String value, Object... values) throws IOException {
+    getTemplate(value).render(out, values);
+  }
+
+  public static void replaceTo(Appendable out, String value, PlaceholderArguments arguments) throws IOException {
+    getTemplate(value).render(out, arguments);
+  }
+
+  public static void replaceResolvedTo(Appendable out, String value, Function<String, ?> resolver) throws IOException {
+    getTemplate(value).render(out, resolver);
   }
 
-  private static String toPlaceholderName(String name) {
+  static String toPlaceholderName(String name) {
     if (EXACTLY_MATCHES.matcher(name).matches()) {
       return name;
     } else if (LOWERCASE.matcher(name).matches()) {
@@ -19,72 +19,204 @@ package net.elytrium.commons.config;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
-import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Repeatable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.yaml.snakeyaml.Yaml;
 
 public class YamlConfig {
 
-  private final Yaml yaml = new Yaml();
-  private YamlConfig original;
+  private static final int PARALLEL_BINDING_CHUNK_SIZE = 64;
+
+  private final Object lock = new Object();
   private String prefix = null;
-  private final List<Integer> placeholders = new LinkedList<>();
-  private final Map<Class<? extends ConfigSerializer<?, ?>>, ConfigSerializer<?, ?>> cachedSerializers = new HashMap<>();
-  private final Map<Class<?>, ConfigSerializer<?, ?>> registeredSerializers = new HashMap<>();
+  private final List<Object> placeholders = new ArrayList<>();
+  private final Map<String, String> rawValues = new IdentityHashMap<>();
+  private final Map<String, String> macros = new LinkedHashMap<>();
+  private final Map<String, List<ConfigChangeListener<?>>> changeListeners = new ConcurrentHashMap<>();
+  private final List<ConfigMetricsListener> metricsListeners = new CopyOnWriteArrayList<>();
+  private final ConfigSerializers serializers = new ConfigSerializers();
   private final FieldNameStyle classFieldNameStyle;
   private final FieldNameStyle nodeFieldNameStyle;
+  private final int naming;
+  private SaveMode saveMode = SaveMode.DIRECT;
+  private ConfigFormat format = ConfigFormat.YAML;
+  private int parallelBindingThreshold;
+  private boolean binaryCache;
+  @Nullable
+  private Path binaryCacheDirectory;
+  @Nullable
+  private ForkJoinPool parallelBindingPool;
+  private SaveResult lastSaveResult;
+  private LoadReport lastLoadReport = LoadReport.EMPTY;
 
   private Logger logger = LoggerFactory.getLogger(YamlConfig.class);
 
   public YamlConfig() {
     this.classFieldNameStyle = FieldNameStyle.MACRO_CASE;
     this.nodeFieldNameStyle = FieldNameStyle.KEBAB_CASE;
+    this.naming = ConfigSchema.getNaming(this.classFieldNameStyle, this.nodeFieldNameStyle);
   }
 
   public YamlConfig(FieldNameStyle classFieldNameStyle, FieldNameStyle nodeFieldNameStyle) {
     this.classFieldNameStyle = classFieldNameStyle;
     this.nodeFieldNameStyle = nodeFieldNameStyle;
+    this.naming = ConfigSchema.getNaming(classFieldNameStyle, nodeFieldNameStyle);
   }
 
   public void setLogger(Logger logger) {
     this.logger = logger;
   }
 
+  @Nullable
+  String getPrefix() {
+    synchronized (this.lock) {
+      return this.prefix;
+    }
+  }
+
+  /**
+   * Sets how the config file is written on save, {@link SaveMode#DIRECT} by default.
+   */
+  public void setSaveMode(@NonNull SaveMode saveMode) {
+    this.saveMode = saveMode;
+  }
+
+  /**
+   * Sets the format the config file is read and written in, {@link ConfigFormat#YAML} by default.
+   * The comments are written only in YAML, the {@link #setBinaryCache(boolean) binary cache} is also used only for YAML.
+   */
+  public void setFormat(@NonNull ConfigFormat format) {
+    this.format = format;
+  }
+
+  /**
+   * Binds the elements of the node sequence lists and maps in parallel on the common fork-join pool
+   * if there are at least the given amount of elements, disabled by default.
+   *
+   * @param threshold The minimal amount of elements, 0 to disable the parallel binding.
+   */
+  public void setParallelBinding(int threshold) {
+    this.setParallelBinding(threshold, null);
+  }
+
+  /**
+   * Binds the elements of the node sequence lists and maps in parallel if there are at least the given amount of elements.
+   * The element order and the failure handling are the same as in the sequential binding.
+   *
+   * @param threshold The minimal amount of elements, 0 to disable the parallel binding.
+   * @param pool      The pool to bind the elements on, null to use the common pool.
+   */
+  public void setParallelBinding(int threshold, @Nullable ForkJoinPool pool) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("threshold < 0");
+    }
+
+    this.parallelBindingThreshold = threshold;
+    this.parallelBindingPool = pool;
+  }
+
+  /**
+   * Caches the parsed config in a binary file next to the config file, e.g. {@code .config.yml.cache},
+   * so the config is not parsed again until it's changed. Disabled by default.
+   */
+  public void setBinaryCache(boolean enabled) {
+    this.binaryCache = enabled;
+    this.binaryCacheDirectory = null;
+  }
+
+  /**
+   * Caches the parsed config in a binary file in the given directory,
+   * so the config is not parsed again until its size, modification time or contents are changed.
+   *
+   * @param cacheDirectory The cache directory, null to disable the cache.
+   */
+  public void setBinaryCache(@Nullable Path cacheDirectory) {
+    this.binaryCache = cacheDirectory != null;
+    this.binaryCacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * Registers the macro expanded in the loaded string values and restored on save, e.g. {@code {SERVER_NAME}}.
+   *
+   * @param name  The macro name, either in the {@code {NAME}}, {@code NAME} or {@code name} format.
+   * @param value The macro value.
+   */
+  public void registerMacro(@NonNull String name, @NonNull String value) {
+    String macroName = net.elytrium.commons.config.Placeholders.toPlaceholderName(name);
+    if (macroName.equals(ConfigMacros.NEW_LINE) || macroName.equals(ConfigMacros.PREFIX)) {
+      throw new IllegalArgumentException(macroName + " is a built-in macro");
+    }
+
+    synchronized (this.lock) {
+      this.macros.put(macroName, value);
+    }
+  }
+
+  public void unregisterMacro(@NonNull String name) {
+    synchronized (this.lock) {
+      this.macros.remove(net.elytrium.commons.config.Placeholders.toPlaceholderName(name));
+    }
+  }
+
+  private ConfigMacros getMacros() {
+    synchronized (this.lock) {
+      return new ConfigMacros(this.macros);
+    }
+  }
+
+  /**
+   * Registers the serializer used for the fields of its {@link ConfigSerializer#getToClass() class}, its subclasses and implementations,
+   * and for the elements of the {@code List} and the values of the {@code Map<String, ?>} fields of these types.
+   *
+   * @param configSerializer The serializer, replaces the previously registered serializer of the same class.
+   */
   public <T, F> void registerSerializer(ConfigSerializer<T, F> configSerializer) {
-    this.registeredSerializers.put(configSerializer.getToClass(), configSerializer);
+    this.serializers.register(configSerializer);
   }
 
   public void registerSerializers(ConfigSerializerCollection configSerializerCollection) {
@@ -138,37 +270,156 @@ public class YamlConfig {
     return this.load(configFile, null);
   }
 
+  /**
+   * Binds the config file into a copy of this instance and publishes the values only if the whole file was bound,
+   * the keys missing from the file keep their values.
+   *
+   * <p>Configs without a no-args constructor are bound into this instance directly,
+   * so a failed load may leave them partially loaded, and their change listeners aren't called.
+   */
   public LoadResult load(@NonNull Path configFile, @Nullable String prefix) {
-    try {
-      this.original = this.getClass().getDeclaredConstructor().newInstance();
-    } catch (InstantiationException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-      throw new IllegalStateException("Unable to create new instance of " + this.getClass().getName());
-    }
     if (!Files.exists(configFile)) {
+      synchronized (this.lock) {
+        this.lastLoadReport = LoadReport.EMPTY;
+      }
+
       return LoadResult.CONFIG_NOT_EXISTS;
     }
 
-    this.dispose();
+    long start = System.nanoTime();
+    LoadContext context = new LoadContext(prefix, this.getMacros());
+    YamlConfig staging = this.bind(configFile, this.createStaging(context), context);
+    long loadNanos = System.nanoTime() - start;
+    this.publish(staging, context);
+    this.dispatchLoadMetrics(this, configFile, context, loadNanos);
+    return LoadResult.SUCCESS;
+  }
+
+  /**
+   * Loads the config into a new instance, leaving this instance untouched.
+   *
+   * @return The new instance with the settings of this instance, or null if the config file doesn't exist.
+   * @throws IllegalStateException If the config class has no no-args constructor.
+   */
+  @Nullable
+  YamlConfig loadSnapshot(@NonNull Path configFile, @Nullable String prefix) {
+    if (!Files.exists(configFile)) {
+      return null;
+    }
+
+    long start = System.nanoTime();
+    LoadContext context = new LoadContext(prefix, this.getMacros());
+    YamlConfig snapshot = this.createStaging(context);
+    if (snapshot == this) {
+      throw new IllegalStateException("Config snapshots require a no-args constructor of " + this.getClass().getName());
+    }
+
+    this.bind(configFile, snapshot, context);
+    long loadNanos = System.nanoTime() - start;
+    snapshot.logger = this.logger;
+    snapshot.saveMode = this.saveMode;
+    snapshot.format = this.format;
+    snapshot.setParallelBinding(this.parallelBindingThreshold, this.parallelBindingPool);
+    snapshot.binaryCache = this.binaryCache;
+    snapshot.binaryCacheDirectory = this.binaryCacheDirectory;
+    snapshot.serializers.copyFrom(this.serializers);
+    snapshot.changeListeners.putAll(this.changeListeners);
+    snapshot.metricsListeners.addAll(this.metricsListeners);
+    synchronized (this.lock) {
+      snapshot.macros.putAll(this.macros);
+    }
+    snapshot.adopt(context);
+    this.dispatchLoadMetrics(snapshot, configFile, context, loadNanos);
+    return snapshot;
+  }
 
-    this.prefix = prefix;
+  /**
+   * Creates the instance the config is bound into, starting from the current values, so the keys missing from the file keep them.
+   * The sections are shared with this instance until the loaded values are bound into them, see {@link #getInstance(ConfigField, Object, LoadContext)}.
+   *
+   * @return The new instance, or this instance if the config class has no no-args constructor.
+   */
+  private YamlConfig createStaging(LoadContext context) {
+    if (!Accessors.hasConstructor(this.getClass())) {
+      return this;
+    }
 
-    String now = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME).replace("T", "_").replace(":", ".");
-    now = now.substring(0, now.lastIndexOf("."));
-    try (InputStream fileInputStream = Files.newInputStream(configFile)) {
-      Map<String, Object> data = this.yaml.load(fileInputStream);
+    YamlConfig staging = Accessors.constructor(this.getClass()).get();
+    synchronized (this.lock) {
+      copyFields(this.getClass(), this, staging, context);
+    }
+
+    return staging;
+  }
 
-      if (data != null && !data.isEmpty()) {
-        this.processMap(data, this.original, "", null, now, false);
-        this.processMap(data, this, "", configFile, now, true);
+  /**
+   * Copies the values of the config fields, the sections held by the final fields are copied into the sections of the target.
+   *
+   * @param context The context of the load the copied sections are shared with, null if the target is the published instance.
+   */
+  private static void copyFields(Class<?> clazz, Object source, Object target, @Nullable LoadContext context) {
+    for (ConfigField field : ConfigSchema.of(clazz).getFields()) {
+      if (field.isStatic() || field.isSkipped() || (context == null && field.isFinalValue())) {
+        continue;
+      }
+
+      Object value = field.get(source);
+      if (field.isFinal()) {
+        Object targetValue = field.get(target);
+        if (value != null && targetValue != null && value != targetValue && field.isCreate() && value.getClass() == targetValue.getClass()) {
+          copyFields(value.getClass(), value, targetValue, context);
+        }
+      } else {
+        field.set(target, value);
+        if (context != null && value != null && ConfigSchema.isNodeMapping(value.getClass())) {
+          context.share(value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Binds the config file into the staging instance.
+   *
+   * @param configFile The config file.
+   * @param staging    The instance to bind into.
+   * @param context    The context of the load.
+   * @return The fully bound instance.
+   */
+  private YamlConfig bind(Path configFile, YamlConfig staging, LoadContext context) {
+    try {
+      boolean timed = !this.metricsListeners.isEmpty();
+      if (this.format != ConfigFormat.YAML) {
+        this.bindDocument(configFile, staging, context, timed);
+      } else if (this.binaryCache) {
+        this.bindCached(configFile, staging, context, timed);
+      } else {
+        if (timed) {
+          context.setFileSize(Files.size(configFile));
+        }
+
+        try (Reader fileReader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+          YamlEventReader reader = new YamlEventReader(YamlConfigFormat.getParser(), fileReader, timed);
+          if (reader.beginDocument()) {
+            if (reader.isMapping()) {
+              this.bindMapping(reader, staging, context);
+            } else if (reader.readValue() != null) {
+              throw new IllegalStateException("Config root should be a mapping");
+            }
+          }
+
+          context.addParseNanos(reader.getParseNanos());
+        }
       }
     } catch (Throwable t) {
+      context.getPlaceholders().forEach(net.elytrium.commons.config.Placeholders.placeholders::remove);
       try {
         Path parent = configFile.getParent();
         if (parent == null) {
           throw new NullPointerException("Config parent path is null for " + configFile);
         }
 
-        String newFileName = configFile.getFileName() + "_invalid_" + now;
+        String newFileName = configFile.getFileName() + "_invalid_" + context.getNow();
         Path configFileCopy = parent.resolve(newFileName);
         Files.copy(configFile, configFileCopy, StandardCopyOption.REPLACE_EXISTING);
 
@@ -178,331 +429,629 @@ public class YamlConfig {
       }
     }
 
-    return LoadResult.SUCCESS;
+    this.reportFailures(configFile, context);
+    return staging;
   }
 
-  private void processMap(Map<String, Object> input, Object instance, String oldPath, @Nullable Path configFile, String now, boolean usePrefix) {
-    for (Map.Entry<String, Object> entry : input.entrySet()) {
-      String key = oldPath + (oldPath.isEmpty() ? oldPath : ".") + entry.getKey();
-      Object value = entry.getValue();
+  /**
+   * Copies the loaded values from the staging instance and replaces the load state.
+   *
+   * @param staging The fully bound instance.
+   * @param context The context of the load.
+   */
+  private void publish(YamlConfig staging, LoadContext context) {
+    List<Runnable> changes;
+    synchronized (this.lock) {
+      changes = this.collectChanges(this, staging);
+      if (staging != this) {
+        copyFields(this.getClass(), staging, this, null);
+      }
 
-      if (value instanceof String) {
-        String stringValue = ((String) value).replace("{NL}", "\n");
-        if (usePrefix) {
-          if (this.prefix != null) {
-            stringValue = stringValue.replace("{PRFX}", this.prefix);
-          }
+      this.adopt(context);
+    }
 
-          value = stringValue;
+    changes.forEach(Runnable::run);
+  }
 
-          if (key.equals("prefix")) {
-            this.prefix = stringValue;
-          }
-        }
+  /**
+   * Replaces the load state of this instance, unregistering the placeholders of the previous values.
+   */
+  private void adopt(LoadContext context) {
+    synchronized (this.lock) {
+      this.placeholders.forEach(net.elytrium.commons.config.Placeholders.placeholders::remove);
+      this.placeholders.clear();
+      this.placeholders.addAll(context.getPlaceholders());
+      this.rawValues.clear();
+      this.rawValues.putAll(context.getRawValues());
+      this.prefix = context.getPrefix();
+      this.lastLoadReport = context.getReport();
+    }
+  }
+
+  /**
+   * Registers the listener of the load and save metrics, e.g. {@link ConfigMetrics}.
+   */
+  public void addMetricsListener(@NonNull ConfigMetricsListener listener) {
+    this.metricsListeners.add(listener);
+  }
+
+  public void removeMetricsListener(@NonNull ConfigMetricsListener listener) {
+    this.metricsListeners.remove(listener);
+  }
+
+  private void dispatchLoadMetrics(YamlConfig config, Path configFile, LoadContext context, long loadNanos) {
+    if (this.metricsListeners.isEmpty()) {
+      return;
+    }
+
+    long parseNanos = context.getParseNanos();
+    ConfigMetricsListener.Load metrics = new ConfigMetricsListener.Load(parseNanos, Math.max(0L, loadNanos - parseNanos), context.getFileSize(),
+        context.getKeyCount(), context.getUnknownKeyCount(), context.getFailures().size(), context.getPlaceholders().size());
+    for (ConfigMetricsListener listener : this.metricsListeners) {
+      try {
+        listener.onLoad(config, configFile, metrics);
+      } catch (Throwable t) {
+        this.logger.warn("Unable to handle the load metrics of {}", configFile, t);
+      }
+    }
+  }
+
+  private void dispatchSaveMetrics(Path configFile, ConfigMetricsListener.Save metrics) {
+    for (ConfigMetricsListener listener : this.metricsListeners) {
+      try {
+        listener.onSave(this, configFile, metrics);
+      } catch (Throwable t) {
+        this.logger.warn("Unable to handle the save metrics of {}", configFile, t);
       }
+    }
+  }
+
+  /**
+   * Registers the listener called after the loads that change the value of the node.
+   *
+   * @param path     The node path, e.g. {@code "database.pool-size"}, the listeners of the sections are called on any nested change.
+   * @param listener The listener.
+   */
+  public <T> void onChange(@NonNull String path, @NonNull ConfigChangeListener<T> listener) {
+    this.changeListeners.computeIfAbsent(path, key -> new CopyOnWriteArrayList<>()).add(listener);
+  }
 
-      this.setFieldByKey(key, instance, value, configFile, now, usePrefix);
+  public void removeChangeListener(@NonNull String path, @NonNull ConfigChangeListener<?> listener) {
+    List<ConfigChangeListener<?>> listeners = this.changeListeners.get(path);
+    if (listeners != null) {
+      listeners.remove(listener);
     }
   }
 
   /**
-   * Sets the value of a specific node. Probably throws some error if you supply non-existing keys or invalid values.
+   * Calls the change listeners for the nodes that differ from the previous snapshot.
+   */
+  void dispatchChanges(YamlConfig previous) {
+    this.collectChanges(previous, this).forEach(Runnable::run);
+  }
+
+  /**
+   * Compares the nodes with the registered change listeners.
    *
-   * @param key   The config node.
-   * @param value The value.
+   * @param oldConfig The instance with the previous values.
+   * @param newConfig The instance with the loaded values.
+   * @return The listener calls for the changed nodes.
    */
   @SuppressWarnings("unchecked")
-  private void setFieldByKey(String key, Object dest, Object value, @Nullable Path configFile, String now, boolean usePrefix) {
-    String[] split = key.split("\\.");
-    Object instance = this.getInstance(dest, split);
-    if (instance != null) {
-      Field field = this.getField(split, instance);
-      if (field != null) {
+  private List<Runnable> collectChanges(Object oldConfig, Object newConfig) {
+    if (this.changeListeners.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<Runnable> changes = new ArrayList<>();
+    this.changeListeners.forEach((path, listeners) -> {
+      Object oldValue = this.resolve(oldConfig, path);
+      Object newValue = this.resolve(newConfig, path);
+      if (!ConfigDiff.equals(oldValue, newValue)) {
+        for (ConfigChangeListener<?> listener : listeners) {
+          changes.add(() -> {
+            try {
+              ((ConfigChangeListener<Object>) listener).onChange(oldValue, newValue);
+            } catch (Throwable t) {
+              this.logger.warn("Unable to handle the change of config node {}", path, t);
+            }
+          });
+        }
+      }
+    });
+
+    return changes;
+  }
+
+  /**
+   * Gets the value of the node by its path.
+   */
+  @Nullable
+  private Object resolve(Object config, String path) {
+    Object current = config;
+    for (String nodeName : path.split("\\.")) {
+      if (current instanceof Map) {
+        current = ((Map<?, ?>) current).get(nodeName);
+      } else if (current != null && ConfigSchema.isNodeMapping(current.getClass())) {
+        ConfigField field = this.getField(ConfigSchema.of(current.getClass()), nodeName);
+        current = field == null ? null : field.get(current);
+      } else {
+        return null;
+      }
+    }
+
+    return current;
+  }
+
+  public CompletableFuture<LoadResult> loadAsync(@NonNull Path configFile, @Nullable String prefix) {
+    return this.loadAsync(configFile, prefix, ConfigExecutors.getDefault());
+  }
+
+  /**
+   * Loads the config on the executor, the loaded values are published to this instance only if the load succeeds.
+   */
+  public CompletableFuture<LoadResult> loadAsync(@NonNull Path configFile, @Nullable String prefix, @NonNull Executor executor) {
+    return CompletableFuture.supplyAsync(() -> this.load(configFile, prefix), executor);
+  }
+
+  public CompletableFuture<LoadResult> reloadAsync(@NonNull Path configFile, @Nullable String prefix) {
+    return this.reloadAsync(configFile, prefix, ConfigExecutors.getDefault());
+  }
+
+  public CompletableFuture<LoadResult> reloadAsync(@NonNull Path configFile, @Nullable String prefix, @NonNull Executor executor) {
+    return CompletableFuture.supplyAsync(() -> this.reload(configFile, prefix), executor);
+  }
+
+  public CompletableFuture<SaveResult> saveAsync(@NonNull Path configFile) {
+    return this.saveAsync(configFile, ConfigExecutors.getDefault());
+  }
+
+  public CompletableFuture<SaveResult> saveAsync(@NonNull Path configFile, @NonNull Executor executor) {
+    return CompletableFuture.supplyAsync(() -> this.saveIfChanged(configFile), executor);
+  }
+
+  /**
+   * Binds the mapping from the event stream directly into the instance, without constructing the sections.
+   *
+   * @param reader   The reader, positioned at the mapping start.
+   * @param instance The instance to bind into.
+   * @param context  The current load context.
+   */
+  private void bindMapping(YamlEventReader reader, Object instance, LoadContext context) {
+    ConfigSchema schema = ConfigSchema.of(instance.getClass());
+    reader.beginMapping();
+    Map<Object, Object> merged = null;
+    Set<String> nodeNames = null;
+    while (true) {
+      if (reader.isMergeKey()) {
+        if (merged == null) {
+          merged = new LinkedHashMap<>();
+        }
+
+        reader.readMerge(merged);
+        continue;
+      }
+
+      String nodeName = reader.nextKey();
+      if (nodeName == null) {
+        break;
+      }
+
+      if (nodeNames == null) {
+        nodeNames = new HashSet<>();
+      }
+
+      nodeNames.add(nodeName);
+      context.push(nodeName);
+      ConfigField field = this.getField(schema, nodeName);
+      if (field == null) {
+        this.onUnknownField(context, instance);
+        reader.skipValue();
+      } else if (field.getType() != Map.class && reader.isMapping() && !reader.isAnchored()) {
+        Object section;
         try {
-          if (field.getType() != Map.class && value instanceof Map) {
-            this.processMap((Map<String, Object>) value, dest, key, configFile, now, usePrefix);
-          } else if (field.getAnnotation(Final.class) == null) {
-            if (field.getType() == String.class && !(value instanceof String)) {
-              value = String.valueOf(value);
-            } else if (usePrefix && field.getAnnotation(Placeholders.class) != null) {
-              if (field.getType() != String.class) {
-                throw new IllegalAccessException(field.getType() + " is incompatible with placeholders");
-              }
-              Placeholders placeholders = field.getAnnotation(Placeholders.class);
-              int hash = net.elytrium.commons.config.Placeholders.addPlaceholders(value, placeholders.value());
-              this.placeholders.add(hash);
-            } else if (field.getGenericType() instanceof ParameterizedType) {
-              if (field.getType() == Map.class && value instanceof Map) {
-                Type parameterType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[1];
-                if (parameterType instanceof Class<?>) {
-                  Class<?> parameter = (Class<?>) parameterType;
-                  if (this.isNodeMapping(parameter)) {
-                    value = ((Map<String, ?>) value).entrySet().stream()
-                        .collect(Collectors.toMap(Map.Entry::getKey,
-                            e -> this.createNodeSequence(parameter, e.getValue(), usePrefix)));
-                  }
+          section = this.getInstance(field, instance, context);
+        } catch (Throwable t) {
+          context.addFailure(null, t);
+          reader.skipValue();
+          context.pop();
+          continue;
+        }
+
+        this.bindMapping(reader, section, context);
+      } else {
+        this.bindField(field, instance, reader.readValue(), context);
+      }
+
+      context.pop();
+    }
+
+    if (merged != null) {
+      // The merged keys don't replace the keys of the mapping itself, regardless of their order.
+      if (nodeNames != null) {
+        Set<String> boundNames = nodeNames;
+        merged.keySet().removeIf(key -> boundNames.contains(String.valueOf(key)));
+      }
+
+      this.bindMap(merged, instance, context);
+    }
+  }
+
+  /**
+   * Binds the already constructed mapping into the instance, used for the node sequences.
+   *
+   * @param input    The mapping.
+   * @param instance The instance to bind into.
+   * @param context  The current load context.
+   */
+  private void bindMap(Map<?, ?> input, Object instance, LoadContext context) {
+    ConfigSchema schema = ConfigSchema.of(instance.getClass());
+    for (Map.Entry<?, ?> entry : input.entrySet()) {
+      String nodeName = String.valueOf(entry.getKey());
+      context.push(nodeName);
+      ConfigField field = this.getField(schema, nodeName);
+      if (field == null) {
+        this.onUnknownField(context, instance);
+      } else {
+        this.bindField(field, instance, entry.getValue(), context);
+      }
+
+      context.pop();
+    }
+  }
+
+  /**
+   * Sets the value of a specific node. Probably throws some error if you supply invalid values.
+   *
+   * @param field    The field of the node.
+   * @param instance The instance that holds the node.
+   * @param value    The value.
+   * @param context  The current load context.
+   */
+  @SuppressWarnings("unchecked")
+  private void bindField(ConfigField field, Object instance, Object value, LoadContext context) {
+    if (value instanceof String) {
+      String stringValue = context.getMacros().expand((String) value, context.getPrefix(), context.getRawValues());
+      value = stringValue;
+
+      if (context.isRoot() && context.getNodeName().equals("prefix")) {
+        context.setPrefix(stringValue);
+      }
+    }
+
+    try {
+      if (field.getType() != Map.class && value instanceof Map) {
+        this.bindMap((Map<?, ?>) value, this.getInstance(field, instance, context), context);
+      } else if (!field.isFinalValue()) {
+        String[] placeholders = field.getPlaceholders();
+        if (field.getType() == String.class && !(value instanceof String)) {
+          value = String.valueOf(value);
+        } else if (placeholders != null) {
+          if (field.getType() != String.class) {
+            throw new IllegalAccessException(field.getType() + " is incompatible with placeholders");
+          }
+          net.elytrium.commons.config.Placeholders.addPlaceholders(value, placeholders);
+          context.getPlaceholders().add(value);
+        } else if (field.isParameterized()) {
+          if (field.getType() == Map.class && value instanceof Map) {
+            Type parameterType = field.getTypeArgument(1);
+            if (parameterType instanceof Class<?>) {
+              Class<?> parameter = (Class<?>) parameterType;
+              if (ConfigSchema.isNodeMapping(parameter)) {
+                // The loaded collections aren't shared with anything else yet, so the elements are converted in place.
+                Map.Entry<Object, Object>[] entries = toEntryArray((Map<Object, Object>) value);
+                Object[] elements = new Object[entries.length];
+                for (int i = 0; i < entries.length; ++i) {
+                  elements[i] = entries[i].getValue();
                 }
-              } else if (field.getType() == List.class && value instanceof List) {
-                Type parameterType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
-                if (parameterType instanceof Class<?>) {
-                  Class<?> parameter = (Class<?>) parameterType;
-                  if (this.isNodeMapping(parameter)) {
-                    value = ((List<?>) value).stream()
-                        .map(obj -> this.createNodeSequence(parameter, obj, usePrefix))
-                        .collect(Collectors.toList());
-                  }
+
+                this.createNodeSequences(parameter, elements, context);
+                for (int i = 0; i < entries.length; ++i) {
+                  entries[i].setValue(elements[i]);
                 }
               }
             }
-
-            this.setField(field, instance, value);
-          }
-        } catch (Throwable t) {
-          this.logger.debug("Failed to set config option: " + key + ": " + value + " | " + instance);
-          if (configFile != null) {
-            Path parent = configFile.getParent();
-            if (parent == null) {
-              throw new NullPointerException("Config parent path is null for " + configFile);
-            }
-
-            Path configFileBackup = parent.resolve(configFile.getFileName() + "_backup_" + now);
-            if (!Files.exists(configFileBackup)) {
-              try {
-                Files.copy(configFile, configFileBackup, StandardCopyOption.REPLACE_EXISTING);
-                this.logger.warn("Unable to load some of the config options. File was copied to {}", configFileBackup.getFileName());
-              } catch (Throwable t2) {
-                this.logger.warn("Unable to load some of the config options and to make a copy.", t2);
+          } else if (field.getType() == List.class && value instanceof List) {
+            Type parameterType = field.getTypeArgument(0);
+            if (parameterType instanceof Class<?>) {
+              Class<?> parameter = (Class<?>) parameterType;
+              if (ConfigSchema.isNodeMapping(parameter)) {
+                List<Object> list = (List<Object>) value;
+                Object[] elements = list.toArray();
+                this.createNodeSequences(parameter, elements, context);
+                for (int i = 0; i < elements.length; ++i) {
+                  list.set(i, elements[i]);
+                }
               }
             }
           }
         }
+
+        this.setField(field, instance, value);
       }
+    } catch (Throwable t) {
+      context.addFailure(value, t);
+    }
+  }
+
+  private void onUnknownField(LoadContext context, Object instance) {
+    context.addUnknownKey();
+    if (this.logger.isDebugEnabled()) {
+      this.logger.debug("Invalid config field: {} for {}", context.getPath(), instance.getClass().getSimpleName());
     }
   }
 
   /**
-   * Gets the instance for a specific config node.
-   *
-   * @param split The node. (split by period)
-   * @return The instance.
+   * Logs the options that couldn't be bound and makes a single copy of the config file if there are any.
    */
-  private Object getInstance(@NonNull Object instance, String[] split) {
-    try {
-      for (int i = 0; i < split.length - 1; i++) {
-        String name = this.toClassFieldName(split[i]);
-        Field field = instance.getClass().getDeclaredField(name);
-        field.setAccessible(true);
-        Object value = field.get(instance);
-        if (value == null) {
-          value = field.getType().getDeclaredConstructor().newInstance();
-          this.setField(field, instance, value);
-        }
-        instance = value;
+  private void reportFailures(Path configFile, LoadContext context) {
+    List<LoadReport.Failure> failures = context.getFailures();
+    if (failures.isEmpty()) {
+      return;
+    }
+
+    if (this.logger.isDebugEnabled()) {
+      for (LoadReport.Failure failure : failures) {
+        this.logger.debug("Failed to set config option: {} ({})", failure.getPath(), failure.getValueType(), failure.getCause());
       }
-    } catch (NoSuchFieldException e) {
-      throw new IllegalStateException("Unable to find field " + e.getMessage() + " in " + instance.getClass().getName());
-    } catch (InvocationTargetException | IllegalAccessException | InstantiationException | NoSuchMethodException e) {
-      throw new IllegalStateException("Unable to create new instance: " + e.getMessage());
     }
 
-    return instance;
+    Path parent = configFile.getParent();
+    if (parent == null) {
+      throw new NullPointerException("Config parent path is null for " + configFile);
+    }
+
+    Path configFileBackup = parent.resolve(configFile.getFileName() + "_backup_" + context.getNow());
+    try {
+      Files.copy(configFile, configFileBackup, StandardCopyOption.REPLACE_EXISTING);
+      context.setBackupFile(configFileBackup);
+      this.logger.warn("Unable to load {} config options. File was copied to {}", failures.size(), configFileBackup.getFileName());
+    } catch (Throwable t) {
+      this.logger.warn("Unable to load {} config options and to make a copy.", failures.size(), t);
+    }
   }
 
   /**
-   * Gets the field for a specific config node and instance.
+   * Gets the instance held by a section field, creating it if it is not set yet.
    *
-   * <p>As expiry can have multiple blocks there will be multiple instances.
-   *
-   * @param split    The node (split by period).
-   * @param instance The instance.
+   * @param field    The section field.
+   * @param instance The instance that holds the field.
+   * @return The section instance.
    */
-  @Nullable
-  private Field getField(String[] split, Object instance) {
-    try {
-      Field field = instance.getClass().getField(this.toClassFieldName(split[split.length - 1]));
-      field.setAccessible(true);
-      return field;
-    } catch (Throwable t) {
-      this.logger.debug("Invalid config field: " + String.join(".", split) + " for " + instance.getClass().getSimpleName());
-      return null;
+  /**
+   * Gets the section to bind the loaded values into, copying it first if it's still shared with the published instance.
+   */
+  private Object getInstance(ConfigField field, Object instance, LoadContext context) {
+    Object value = field.get(instance);
+    if (value != null && context.isShared(value) && Accessors.hasConstructor(value.getClass())) {
+      Object copy = Accessors.constructor(value.getClass()).get();
+      copyFields(value.getClass(), value, copy, context);
+      this.setField(field, instance, copy);
+      return copy;
     }
+
+    return this.getInstance(field, instance);
   }
 
-  private boolean isNodeMapping(Class<?> cls) {
-    return cls.getAnnotation(NodeSequence.class) != null
-        || (!cls.isPrimitive() && !cls.isEnum() && !Number.class.isAssignableFrom(cls)
-        && !Map.class.isAssignableFrom(cls) && !List.class.isAssignableFrom(cls)
-        && !String.class.isAssignableFrom(cls));
+  private Object getInstance(ConfigField field, Object instance) {
+    Object value = field.get(instance);
+    if (value == null) {
+      value = Accessors.constructor(field.getType()).get();
+      this.setField(field, instance, value);
+    }
+
+    return value;
+  }
+
+  /**
+   * Gets the field for a specific config node, first by its cached node name and then by the converted class field name.
+   *
+   * @param schema   The schema of the instance class.
+   * @param nodeName The config node name.
+   */
+  @Nullable
+  private ConfigField getField(ConfigSchema schema, String nodeName) {
+    ConfigField field = schema.getNodeField(nodeName, this.naming, this::toNodeFieldName);
+    return field == null ? schema.getField(this.toClassFieldName(nodeName)) : field;
   }
 
   public void save(@NonNull File configFile) {
-    this.save(configFile.toPath());
+    this.saveIfChanged(configFile.toPath());
   }
 
   /**
    * Sets all values in the file (load first to avoid overwriting).
+   *
+   * <p>The file is not rewritten if its contents are the same as the rendered config, see {@link #getLastSaveResult()}.
    */
   public void save(@NonNull Path configFile) {
+    this.saveIfChanged(configFile);
+  }
+
+  public SaveResult saveIfChanged(@NonNull File configFile) {
+    return this.saveIfChanged(configFile.toPath());
+  }
+
+  /**
+   * Sets all values in the file, the same as {@link #save(Path)}, unless its contents are the same as the rendered config.
+   *
+   * @return {@link SaveResult#UNCHANGED} if the file was left untouched.
+   */
+  public SaveResult saveIfChanged(@NonNull Path configFile) {
     try {
-      Path parent = configFile.getParent();
-      if (!Files.exists(configFile) && parent != null) {
-        Files.createDirectories(parent);
-        Files.createFile(configFile);
+      long start = System.nanoTime();
+      ByteBuffer data;
+      synchronized (this.lock) {
+        data = this.format == ConfigFormat.YAML ? this.render() : this.renderDocument();
       }
 
-      PrintWriter writer = new PrintWriter(new OutputStreamWriter(new BufferedOutputStream(Files.newOutputStream(configFile)), StandardCharsets.UTF_8));
-      this.writeConfigKeyValue(writer, this.getClass(), this, this.original, 0, true);
-      writer.close();
-    } catch (Throwable t) {
-      throw new ConfigSaveException(t);
-    }
-  }
+      long fileSize = data.remaining();
 
-  private void writeConfigKeyValue(PrintWriter writer, Class<?> clazz, Object instance, Object original, int indent, boolean usePrefix)
-      throws IllegalAccessException, NoSuchMethodException, InvocationTargetException, InstantiationException {
-    String lineSeparator = System.lineSeparator();
-    String spacing = this.getSpacing(indent);
+      SaveResult result;
+      if (this.isSameContents(configFile, data)) {
+        result = SaveResult.UNCHANGED;
+      } else {
+        Path parent = configFile.getParent();
+        if (parent != null) {
+          Files.createDirectories(parent);
+        }
 
-    for (Field field : clazz.getFields()) {
-      if (field.getAnnotation(Ignore.class) != null || Modifier.isTransient(field.getModifiers())) {
-        continue;
+        if (this.saveMode == SaveMode.DIRECT) {
+          this.write(configFile, data, false);
+        } else {
+          // Every save gets its own temp file, so the concurrent saves of the same file never publish each other's partial data.
+          String tempFileName = "." + configFile.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+          Path tempFile = configFile.resolveSibling(tempFileName);
+          try {
+            this.write(tempFile, data, this.saveMode == SaveMode.ATOMIC_FORCE);
+            try {
+              Files.move(tempFile, configFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+              Files.move(tempFile, configFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+          } finally {
+            Files.deleteIfExists(tempFile);
+          }
+        }
+
+        result = SaveResult.WRITTEN;
       }
 
-      Class<?> current = field.getType();
-      if (current.getAnnotation(Ignore.class) != null) {
-        continue;
+      synchronized (this.lock) {
+        this.lastSaveResult = result;
       }
 
-      this.writeNewLines(field.getAnnotation(NewLine.class), writer, lineSeparator);
+      this.dispatchSaveMetrics(configFile, new ConfigMetricsListener.Save(System.nanoTime() - start, fileSize, result));
+      return result;
+    } catch (Throwable t) {
+      throw new ConfigSaveException(t);
+    }
+  }
 
-      Comment[] comments = field.getAnnotationsByType(Comment.class);
-      this.writePrependComments(comments, writer, spacing, lineSeparator);
+  /**
+   * Gets the options that couldn't be bound during the last successful load, empty if the config file didn't exist.
+   */
+  public LoadReport getLastLoadReport() {
+    synchronized (this.lock) {
+      return this.lastLoadReport;
+    }
+  }
 
-      if (field.getAnnotation(Create.class) != null) {
-        this.writeNewLines(current.getAnnotation(NewLine.class), writer, lineSeparator);
+  /**
+   * Gets the result of the last save, including the saves made by {@link #reload(Path, String)}.
+   */
+  @Nullable
+  public SaveResult getLastSaveResult() {
+    synchronized (this.lock) {
+      return this.lastSaveResult;
+    }
+  }
 
-        comments = current.getAnnotationsByType(Comment.class);
-        this.writePrependComments(comments, writer, spacing, lineSeparator);
+  private ByteBuffer render() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    YamlWriter writer = new YamlWriter(builder, System.lineSeparator());
+    this.writeSection(writer, this.getClass(), this, 0);
+    writer.finish();
+    return StandardCharsets.UTF_8.encode(CharBuffer.wrap(builder));
+  }
 
-        writer.write(spacing);
-        writer.write(this.toNodeFieldName(field.getName()));
-        writer.write(':');
+  private ByteBuffer renderDocument() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    this.format.write(output, this.toDocument(this.getClass(), this));
+    return ByteBuffer.wrap(output.toByteArray());
+  }
 
-        this.writeComments(comments, writer, lineSeparator, spacing + "  ");
+  private void write(Path file, ByteBuffer data, boolean force) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (data.hasRemaining()) {
+        channel.write(data);
+      }
 
-        field.setAccessible(true);
-        Object value = field.get(instance);
+      if (force) {
+        channel.force(false);
+      }
+    }
+  }
 
-        if (value == null) {
-          value = current.getDeclaredConstructor().newInstance();
-          this.setField(field, instance, value);
-        }
+  private boolean isSameContents(Path configFile, ByteBuffer data) throws IOException {
+    return Files.isRegularFile(configFile)
+        && Files.size(configFile) == data.remaining()
+        && ByteBuffer.wrap(Files.readAllBytes(configFile)).equals(data);
+  }
 
-        Object originalValue = field.get(original);
+  private void writeSection(YamlWriter writer, Class<?> clazz, Object instance, int indent) throws IOException {
+    for (ConfigField field : ConfigSchema.of(clazz).getFields()) {
+      if (field.isSkipped()) {
+        continue;
+      }
 
-        if (originalValue == null) {
-          originalValue = current.getDeclaredConstructor().newInstance();
-          this.setField(field, original, originalValue);
-        }
+      Class<?> current = field.getType();
+      ConfigComments comments = field.getComments();
+      this.writeNewLines(writer, comments);
+      this.writePrependComments(writer, comments, indent);
 
-        this.writeConfigKeyValue(writer, current, value, originalValue, indent + 2, usePrefix);
-      } else {
-        String fieldName = field.getName();
+      if (field.isCreate()) {
+        comments = ConfigSchema.of(current).getComments();
+        this.writeNewLines(writer, comments);
+        this.writePrependComments(writer, comments, indent);
 
-        String fieldValue = this.toYamlString(field, field.get(instance), lineSeparator, spacing, usePrefix);
-        String originalFieldValue = this.toYamlString(field, field.get(original), lineSeparator, spacing, usePrefix);
-        String valueToWrite = fieldValue;
+        writer.indent(indent);
+        writer.write(field.getNodeName(this.naming, this::toNodeFieldName));
+        writer.write(':');
 
-        if (this.prefix != null) {
-          if (fieldValue.startsWith("\"") && fieldValue.endsWith("\"")) { // String
-            if (fieldValue.replace("{PRFX}", this.prefix).equals(originalFieldValue.replace("{PRFX}", this.prefix))) {
-              valueToWrite = originalFieldValue;
-            }
-          } else if (fieldValue.contains(lineSeparator)) { // Map/List
-            StringBuilder builder = new StringBuilder();
-            String[] lines = fieldValue.split(lineSeparator);
-            String[] originalLines = originalFieldValue.split(lineSeparator);
-            for (int i = 0; i < lines.length; i++) {
-              String line = lines[i];
-              String toAppend = line;
-              if (i < originalLines.length) {
-                String originalLine = originalLines[i];
-                if (line.replace("{PRFX}", this.prefix).equals(originalLine.replace("{PRFX}", this.prefix))) {
-                  toAppend = originalLine;
-                }
-              }
-              builder.append(toAppend).append(lineSeparator);
-            }
-            builder.setLength(builder.length() - lineSeparator.length());
-            valueToWrite = builder.toString();
-          }
-        }
+        this.writeComments(writer, comments, indent + 2);
 
-        writer.write(spacing);
-        writer.write(this.toNodeFieldName(fieldName));
-        writer.write((valueToWrite.contains(lineSeparator) ? ":" : ": "));
-        writer.write(valueToWrite);
+        Object value = this.getInstance(field, instance);
+        this.writeSection(writer, current, value, indent + 2);
+      } else {
+        Object value = this.serialize(field, field.get(instance));
+        writer.indent(indent);
+        writer.write(field.getNodeName(this.naming, this::toNodeFieldName));
+        writer.write(this.isBlock(value, false) ? ":" : ": ");
+        this.writeValue(writer, field, value, indent, false, 0);
 
-        this.writeComments(comments, writer, lineSeparator, spacing);
+        this.writeComments(writer, comments, indent);
       }
     }
   }
 
-  private String getSpacing(int indent) {
-    return new String(new char[indent]).replace('\0', ' ');
-  }
-
-  private void writeNewLines(@Nullable NewLine newLine, PrintWriter writer, String lineSeparator) {
-    if (newLine != null) {
-      for (int i = 0; i < newLine.amount(); ++i) {
-        writer.write(lineSeparator);
-      }
+  private void writeNewLines(YamlWriter writer, ConfigComments comments) throws IOException {
+    for (int i = 0; i < comments.getNewLines(); ++i) {
+      writer.lineBreak();
     }
   }
 
-  private void writePrependComments(Comment[] comments, PrintWriter writer, String spacing, String lineSeparator) {
-    for (Comment comment : comments) {
-      if (comment.at().equals(Comment.At.PREPEND)) {
-        for (String commentLine : comment.value()) {
-          writer.write(spacing);
-          writer.write("# ");
-          writer.write(commentLine.replace("\n", lineSeparator));
-          writer.write(lineSeparator);
-        }
-      }
+  private void writePrependComments(YamlWriter writer, ConfigComments comments, int indent) throws IOException {
+    for (String commentLine : comments.getPrepend()) {
+      writer.writeComment(indent, commentLine);
     }
   }
 
-  private void writeComments(Comment[] comments, PrintWriter writer, String lineSeparator, String spacing) {
-    Map<Comment.At, List<Comment>> groups = Arrays.stream(comments).collect(Collectors.groupingBy(Comment::at));
-    if (groups.containsKey(Comment.At.SAME_LINE)) {
+  private void writeComments(YamlWriter writer, ConfigComments comments, int indent) throws IOException {
+    String sameLine = comments.getSameLine();
+    if (sameLine != null) {
       writer.write(" # ");
-      writer.write(groups.get(Comment.At.SAME_LINE).get(0).value()[0]);
+      writer.write(sameLine);
     }
 
-    writer.write(lineSeparator);
-    for (Comment comment : groups.getOrDefault(Comment.At.APPEND, Collections.emptyList())) {
-      for (String commentLine : comment.value()) {
-        writer.write(spacing + "# " + commentLine.replace("\n", lineSeparator) + lineSeparator);
-      }
+    writer.lineBreak();
+    for (String commentLine : comments.getAppend()) {
+      writer.writeComment(indent, commentLine);
     }
   }
 
   @SuppressWarnings("unchecked")
-  private void setField(Field field, Object owner, Object value)
-      throws IllegalAccessException, InvocationTargetException, NoSuchMethodException, InstantiationException {
-    int modifiers = field.getModifiers();
-    if (Modifier.isStatic(modifiers)) {
+  private void setField(ConfigField field, Object owner, Object value) {
+    if (field.isStatic()) {
       throw new IllegalStateException("This field shouldn't be static.");
-    } else if (Modifier.isFinal(modifiers)) {
+    } else if (field.isFinal()) {
       throw new IllegalStateException("This field shouldn't be final.");
     } else {
       if (field.getType() == Map.class && value instanceof Map) {
-        if (((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0] != String.class) {
+        if (field.getTypeArgument(0) != String.class) {
           throw new IllegalStateException("Key type of this map should be " + String.class);
         }
-        value = ((Map<?, ?>) value).entrySet().stream()
-            .collect(Collectors.toMap(e -> String.valueOf(e.getKey()), Map.Entry::getValue));
+        value = toStringKeys((Map<?, ?>) value);
       } else if (field.getType().isEnum()) {
         String stringValue = String.valueOf(value);
         if (stringValue.isEmpty() || stringValue.equals("null")) {
@@ -513,35 +1062,71 @@ public class YamlConfig {
         }
       }
 
-      ConfigSerializer<?, ?> configSerializer = this.registeredSerializers.get(field.getType());
+      ConfigSerializer<?, ?> configSerializer = this.serializers.resolve(field);
       if (configSerializer != null) {
         value = configSerializer.deserializeRaw(value);
       }
 
-      CustomSerializer customSerializer = field.getAnnotation(CustomSerializer.class);
+      Class<? extends ConfigSerializer<?, ?>> customSerializer = field.getCustomSerializer();
       if (customSerializer != null) {
-        value = this.getAndCacheSerializer(customSerializer).deserializeRaw(value);
+        value = this.serializers.getCustom(customSerializer).deserializeRaw(value);
       }
 
-      field.set(owner, value);
+      field.setCoerced(owner, toFieldCollection(field, value));
     }
   }
 
+  /**
+   * Converts the map keys to strings, returning the same map if all keys are already strings.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> toStringKeys(Map<?, ?> map) {
+    for (Object key : map.keySet()) {
+      if (!(key instanceof String)) {
+        Map<String, Object> stringKeys = new LinkedHashMap<>((int) (map.size() / 0.75F) + 1);
+        map.forEach((mapKey, mapValue) -> stringKeys.put(String.valueOf(mapKey), mapValue));
+        return stringKeys;
+      }
+    }
+
+    return (Map<String, Object>) map;
+  }
+
+  /**
+   * Converts the loaded collection to the {@link Set} if the field is a set and to the compact representation for the {@link Compact} fields.
+   */
+  @SuppressWarnings("unchecked")
+  private static Object toFieldCollection(ConfigField field, Object value) {
+    Class<?> type = field.getType();
+    if (!type.isInterface()) {
+      return value;
+    }
+
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      if (type == Set.class) {
+        if (field.isCompact()) {
+          return CompactCollections.toSet(collection);
+        }
+
+        return collection instanceof Set ? collection : new LinkedHashSet<>(collection);
+      } else if (field.isCompact() && type.isAssignableFrom(List.class)) {
+        return CompactCollections.toList(collection);
+      }
+    } else if (value instanceof Map && field.isCompact() && type == Map.class) {
+      return CompactCollections.toMap((Map<String, ?>) value);
+    }
+
+    return value;
+  }
+
   /**
    * Creates a new node sequence instance with unchanged fields.
    *
    * @param nodeSequenceClass Node class.
    */
   protected static <T> T createNodeSequence(Class<T> nodeSequenceClass) {
-    try {
-      Constructor<T> constructor = nodeSequenceClass.getDeclaredConstructor();
-      constructor.setAccessible(true);
-      return constructor.newInstance();
-    } catch (NoSuchMethodException e) {
-      throw new IllegalStateException("Method not found: " + e.getMessage());
-    } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-      throw new RuntimeException("Unable to create instance of " + nodeSequenceClass.getName());
-    }
+    return Accessors.constructor(nodeSequenceClass).get();
   }
 
   /**
@@ -551,16 +1136,108 @@ public class YamlConfig {
    * @param objects           Values.
    */
   @SuppressWarnings("unchecked")
-  private <T> T createNodeSequence(Class<T> nodeSequenceClass, Object objects, boolean usePrefix) {
+  private <T> T createNodeSequence(Class<T> nodeSequenceClass, Object objects, LoadContext context) {
     if (!(objects instanceof Map)) {
       return (T) objects;
     }
 
     T instance = createNodeSequence(nodeSequenceClass);
-    this.processMap((Map<String, Object>) objects, instance, "", null, null, usePrefix);
+    this.bindMap((Map<?, ?>) objects, instance, context);
     return instance;
   }
 
+  /**
+   * Reads the whole document in the config format and binds it.
+   */
+  private void bindDocument(Path configFile, Object instance, LoadContext context, boolean timed) throws IOException {
+    if (timed) {
+      context.setFileSize(Files.size(configFile));
+    }
+
+    Object document;
+    long start = timed ? System.nanoTime() : 0L;
+    try (InputStream input = new BufferedInputStream(Files.newInputStream(configFile))) {
+      document = this.format.read(input);
+    }
+
+    if (timed) {
+      context.addParseNanos(System.nanoTime() - start);
+    }
+
+    if (document instanceof Map) {
+      this.bindMap((Map<?, ?>) document, instance, context);
+    } else if (document != null) {
+      throw new IllegalStateException("Config root should be a mapping");
+    }
+  }
+
+  /**
+   * Binds the cached document if the config file wasn't changed since it was cached, otherwise parses the whole document and caches it.
+   */
+  private void bindCached(Path configFile, Object instance, LoadContext context, boolean timed) throws IOException {
+    byte[] data = Files.readAllBytes(configFile);
+    long start = timed ? System.nanoTime() : 0L;
+    context.setFileSize(data.length);
+    ConfigCache.Key key = new ConfigCache.Key(data, Files.getLastModifiedTime(configFile).toMillis());
+    Path cacheFile = ConfigCache.getCacheFile(configFile, this.binaryCacheDirectory);
+    Object document = ConfigCache.read(cacheFile, key);
+    if (document == ConfigCache.MISS) {
+      try (Reader fileReader = new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8)) {
+        YamlEventReader reader = new YamlEventReader(YamlConfigFormat.getParser(), fileReader);
+        document = reader.beginDocument() ? reader.readValue() : null;
+      }
+
+      // The document should be cached before the binding, as the node sequences are converted in place.
+      try {
+        ConfigCache.write(cacheFile, key, document);
+      } catch (Throwable t) {
+        this.logger.debug("Unable to cache config {}", configFile, t);
+      }
+    }
+
+    if (timed) {
+      context.addParseNanos(System.nanoTime() - start);
+    }
+
+    if (document instanceof Map) {
+      this.bindMap((Map<?, ?>) document, instance, context);
+    } else if (document != null) {
+      throw new IllegalStateException("Config root should be a mapping");
+    }
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static Map.Entry<Object, Object>[] toEntryArray(Map<Object, Object> map) {
+    return map.entrySet().toArray(new Map.Entry[0]);
+  }
+
+  /**
+   * Replaces the elements with the node sequence instances, binding them in parallel if there are enough elements.
+   */
+  private void createNodeSequences(Class<?> nodeSequenceClass, Object[] elements, LoadContext context) {
+    int threshold = this.parallelBindingThreshold;
+    if (threshold == 0 || elements.length < threshold) {
+      for (int i = 0; i < elements.length; ++i) {
+        elements[i] = this.createNodeSequence(nodeSequenceClass, elements[i], context);
+      }
+
+      return;
+    }
+
+    ForkJoinPool pool = this.parallelBindingPool == null ? ForkJoinPool.commonPool() : this.parallelBindingPool;
+    int chunkSize = Math.max(PARALLEL_BINDING_CHUNK_SIZE, elements.length / (pool.getParallelism() * 4));
+    LoadContext[] forks = new LoadContext[(elements.length + chunkSize - 1) / chunkSize];
+    for (int i = 0; i < forks.length; ++i) {
+      forks[i] = context.fork();
+    }
+
+    pool.invoke(new NodeSequenceTask(nodeSequenceClass, elements, forks, chunkSize, 0, forks.length));
+    // Merging the forks in the element order keeps the placeholders order the same as in the sequential binding.
+    for (LoadContext fork : forks) {
+      context.join(fork);
+    }
+  }
+
   /**
    * Creates a new node sequence instance with specified field values.
    *
@@ -588,7 +1265,7 @@ public class YamlConfig {
         field.setAccessible(true);
         Object value = idx >= values.length ? null : values[idx];
         if (field.getAnnotation(Create.class) != null && !field.getType().isInstance(value)) {
-          field.set(instance, field.getType().getDeclaredConstructor().newInstance());
+          field.set(instance, Accessors.constructor(field.getType()).get());
           continue;
         } else if (value == null) {
           continue;
@@ -599,8 +1276,6 @@ public class YamlConfig {
       return instance;
     } catch (IllegalAccessException e) {
       throw new RuntimeException("Unable to set field: " + e.getMessage());
-    } catch (InvocationTargetException | InstantiationException | NoSuchMethodException e) {
-      throw new IllegalStateException("Unable to create new instance: " + e.getMessage());
     }
   }
 
@@ -622,110 +1297,236 @@ public class YamlConfig {
     return this.classFieldNameStyle.fromMacroCase(this.nodeFieldNameStyle.toMacroCase(field));
   }
 
-  private String toYamlString(Field field, Object value, String lineSeparator, String spacing, boolean usePrefix)
-      throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-    return this.toYamlString(field, value, lineSeparator, spacing, false, false, 0, usePrefix);
+  /**
+   * Applies the custom and the registered serializers of the field to the value.
+   */
+  private Object serialize(@Nullable ConfigField field, Object value) {
+    if (field != null) {
+      Class<? extends ConfigSerializer<?, ?>> customSerializer = field.getCustomSerializer();
+      if (customSerializer != null) {
+        value = this.serializers.getCustom(customSerializer).serializeRaw(value);
+      }
+
+      ConfigSerializer<?, ?> configSerializer = this.serializers.resolve(field);
+      if (configSerializer != null) {
+        value = configSerializer.serializeRaw(value);
+      }
+    }
+
+    return value;
   }
 
-  private String toYamlString(Field field, Object value, String lineSeparator,
-                              String spacing, boolean isCollection, boolean isMap, int nested, boolean usePrefix)
-      throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+  /**
+   * Applies the custom serializer and the registered serializer of the field class to the list element,
+   * the element serializers were already applied to the whole list.
+   */
+  private Object serializeElement(@Nullable ConfigField field, Object element) {
     if (field != null) {
-      CustomSerializer customSerializer = field.getAnnotation(CustomSerializer.class);
-
+      Class<? extends ConfigSerializer<?, ?>> customSerializer = field.getCustomSerializer();
       if (customSerializer != null) {
-        value = this.getAndCacheSerializer(customSerializer).serializeRaw(value);
+        element = this.serializers.getCustom(customSerializer).serializeRaw(element);
       }
 
-      ConfigSerializer<?, ?> configSerializer = this.registeredSerializers.get(field.getType());
+      ConfigSerializer<?, ?> configSerializer = this.serializers.resolve(field.getType());
       if (configSerializer != null) {
-        value = configSerializer.serializeRaw(value);
+        element = configSerializer.serializeRaw(element);
       }
     }
 
+    return element;
+  }
+
+  /**
+   * Whether the value is written as a block starting on the next line.
+   */
+  private boolean isBlock(Object value, boolean isMap) {
+    if (value instanceof Map) {
+      return !((Map<?, ?>) value).isEmpty();
+    } else if (value instanceof Collection) {
+      return !((Collection<?>) value).isEmpty();
+    } else {
+      return isMap && value != null && ConfigSchema.isNodeMapping(value.getClass());
+    }
+  }
+
+  /**
+   * Writes the already serialized value.
+   *
+   * @param writer The writer.
+   * @param field  The field of the value, null for the map values.
+   * @param value  The value.
+   * @param indent The indentation of the node that holds the value.
+   * @param isMap  Whether the value is placed in a map.
+   * @param nested The nesting level of the list that holds the value, 0 if the value is not placed in a list.
+   */
+  private void writeValue(YamlWriter writer, @Nullable ConfigField field, Object value, int indent, boolean isMap, int nested) throws IOException {
     if (value instanceof Map) {
       Map<?, ?> map = (Map<?, ?>) value;
       if (map.isEmpty()) {
-        return "{}";
+        writer.write("{}");
+        return;
       }
 
-      StringBuilder builder = new StringBuilder();
       for (Map.Entry<?, ?> entry : map.entrySet()) {
-        Object key = entry.getKey();
         Object mapValue = entry.getValue();
-        String data = this.toYamlString(null, mapValue, lineSeparator, spacing, true, true, 0, usePrefix);
-        builder.append(lineSeparator)
-            .append(spacing).append("  ")
-            .append(this.toNodeFieldName(String.valueOf(key))).append(data.startsWith(lineSeparator) ? ":" : ": ")
-            .append(data);
+        writer.lineBreak();
+        writer.indent(indent + 2);
+        writer.write(this.toNodeFieldName(String.valueOf(entry.getKey())));
+        writer.write(this.isBlock(mapValue, true) ? ":" : ": ");
+        this.writeValue(writer, null, mapValue, indent, true, 0);
       }
-
-      return builder.toString();
-    } else if (value instanceof List) {
-      List<?> listValue = (List<?>) value;
+    } else if (value instanceof Collection) {
+      Collection<?> listValue = (Collection<?>) value;
       if (listValue.isEmpty()) {
-        return "[]";
+        writer.write("[]");
+        return;
       }
 
-      StringBuilder builder = new StringBuilder();
       boolean newLine = nested == 0;
       for (Object obj : listValue) {
         if (newLine) {
-          builder.append(lineSeparator).append(spacing).append(this.getSpacing(2 + nested * 2));
+          writer.lineBreak();
+          writer.indent(indent + 2 + nested * 2);
         } else {
           newLine = true;
         }
 
-        builder.append("- ").append(
-            this.toYamlString(field, obj, lineSeparator, spacing, true, false, nested + 1, usePrefix));
+        writer.write("- ");
+        this.writeValue(writer, field, this.serializeElement(field, obj), indent, false, nested + 1);
       }
-
-      return builder.toString();
     } else if (value instanceof String) {
-      String stringValue = (String) value;
-      if (stringValue.isEmpty()) {
-        return "\"\"";
-      }
-
-      return ('"' + stringValue.replace("\\", "\\\\").replace("\"", "\\\"") + '"').replace("\n", "{NL}");
-    } else if (value != null && isCollection && this.isNodeMapping(value.getClass())) {
-      try (
-          StringWriter stringWriter = new StringWriter();
-          PrintWriter writer = new PrintWriter(stringWriter)
-      ) {
-        if (isMap) {
-          writer.write(lineSeparator);
-        }
-        int indent = spacing.length() + 4;
-        this.writeConfigKeyValue(writer, value.getClass(), value, value, indent, usePrefix);
-        writer.flush();
-        String data = stringWriter.toString();
-        return data.substring(isMap ? 0 : indent, data.length() - lineSeparator.length());
-      } catch (IOException e) {
-        throw new RuntimeException(e);
+      String rawValue = this.rawValues.get(value);
+      writer.writeQuoted(rawValue == null ? (String) value : rawValue);
+    } else if (value instanceof Duration) {
+      writer.writeQuoted(ConfigValues.formatDuration((Duration) value));
+    } else if (value != null && (isMap || nested != 0) && ConfigSchema.isNodeMapping(value.getClass())) {
+      if (isMap) {
+        writer.lineBreak();
+      } else {
+        writer.inline();
       }
+
+      this.writeSection(writer, value.getClass(), value, indent + 4);
+      writer.cancelLineBreak();
     } else {
-      return String.valueOf(value);
+      writer.write(String.valueOf(value));
     }
   }
 
-  private ConfigSerializer<?, ?> getAndCacheSerializer(CustomSerializer serializer)
-      throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
-    Class<? extends ConfigSerializer<?, ?>> serializerClass = serializer.serializerClass();
-    ConfigSerializer<?, ?> configSerializer = this.cachedSerializers.get(serializerClass);
-    if (configSerializer == null) {
-      configSerializer = serializerClass.getDeclaredConstructor().newInstance();
-      this.cachedSerializers.put(serializerClass, configSerializer);
+  /**
+   * Converts the section to the document written by the non-YAML formats, the same way as it's written by {@link #writeSection}.
+   */
+  private Map<String, Object> toDocument(Class<?> clazz, Object instance) {
+    Map<String, Object> document = new LinkedHashMap<>();
+    for (ConfigField field : ConfigSchema.of(clazz).getFields()) {
+      if (field.isSkipped()) {
+        continue;
+      }
+
+      String nodeName = field.getNodeName(this.naming, this::toNodeFieldName);
+      if (field.isCreate()) {
+        document.put(nodeName, this.toDocument(field.getType(), this.getInstance(field, instance)));
+      } else {
+        document.put(nodeName, this.toDocumentValue(field, this.serialize(field, field.get(instance)), false));
+      }
     }
 
-    return configSerializer;
+    return document;
+  }
+
+  /**
+   * Converts the already serialized value to the document value, the same way as it's written by {@link #writeValue}.
+   *
+   * @param field  The field of the value, null for the map values.
+   * @param value  The value.
+   * @param nested Whether the value is placed in a map or a list.
+   */
+  @Nullable
+  private Object toDocumentValue(@Nullable ConfigField field, @Nullable Object value, boolean nested) {
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      Map<String, Object> documentMap = new LinkedHashMap<>();
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        String key = this.nodeFieldNameStyle.fromMacroCase(this.classFieldNameStyle.toMacroCase(String.valueOf(entry.getKey())));
+        documentMap.put(key, this.toDocumentValue(null, entry.getValue(), true));
+      }
+
+      return documentMap;
+    } else if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      List<Object> documentList = new ArrayList<>(collection.size());
+      for (Object element : collection) {
+        documentList.add(this.toDocumentValue(field, this.serializeElement(field, element), true));
+      }
+
+      return documentList;
+    } else if (value instanceof String) {
+      String rawValue = this.rawValues.get(value);
+      return rawValue == null ? value : rawValue;
+    } else if (value instanceof Duration) {
+      return ConfigValues.formatDuration((Duration) value);
+    } else if (value == null || value instanceof Boolean || value instanceof Integer || value instanceof Long
+        || value instanceof BigInteger || value instanceof Double) {
+      return value;
+    } else if (value instanceof Float) {
+      return Double.valueOf(value.toString());
+    } else if (value instanceof Short || value instanceof Byte) {
+      return ((Number) value).intValue();
+    } else if (nested && ConfigSchema.isNodeMapping(value.getClass())) {
+      return this.toDocument(value.getClass(), value);
+    } else {
+      return String.valueOf(value);
+    }
   }
 
   public void dispose() {
-    this.placeholders.forEach(net.elytrium.commons.config.Placeholders.placeholders::remove);
-    this.placeholders.clear();
-    this.cachedSerializers.clear();
-    this.prefix = null;
+    synchronized (this.lock) {
+      this.placeholders.forEach(net.elytrium.commons.config.Placeholders.placeholders::remove);
+      this.placeholders.clear();
+      this.rawValues.clear();
+      this.prefix = null;
+    }
+  }
+
+  /**
+   * Binds the node sequences of a range of chunks, splitting it in halves until a single chunk is left.
+   */
+  @SuppressWarnings("serial")
+  private final class NodeSequenceTask extends RecursiveAction {
+
+    private final Class<?> nodeSequenceClass;
+    private final Object[] elements;
+    private final LoadContext[] forks;
+    private final int chunkSize;
+    private final int fromChunk;
+    private final int toChunk;
+
+    private NodeSequenceTask(Class<?> nodeSequenceClass, Object[] elements, LoadContext[] forks, int chunkSize, int fromChunk, int toChunk) {
+      this.nodeSequenceClass = nodeSequenceClass;
+      this.elements = elements;
+      this.forks = forks;
+      this.chunkSize = chunkSize;
+      this.fromChunk = fromChunk;
+      this.toChunk = toChunk;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.toChunk - this.fromChunk > 1) {
+        int middle = (this.fromChunk + this.toChunk) >>> 1;
+        invokeAll(
+            new NodeSequenceTask(this.nodeSequenceClass, this.elements, this.forks, this.chunkSize, this.fromChunk, middle),
+            new NodeSequenceTask(this.nodeSequenceClass, this.elements, this.forks, this.chunkSize, middle, this.toChunk)
+        );
+        return;
+      }
+
+      LoadContext fork = this.forks[this.fromChunk];
+      int to = Math.min(this.elements.length, (this.fromChunk + 1) * this.chunkSize);
+      for (int i = this.fromChunk * this.chunkSize; i < to; ++i) {
+        this.elements[i] = YamlConfig.this.createNodeSequence(this.nodeSequenceClass, this.elements[i], fork);
+      }
+    }
   }
 
   public enum LoadResult {
@@ -735,6 +1536,29 @@ public class YamlConfig {
     CONFIG_NOT_EXISTS
   }
 
+  public enum SaveResult {
+
+    WRITTEN,
+    UNCHANGED
+  }
+
+  public enum SaveMode {
+
+    /**
+     * The config file is truncated and written in place.
+     */
+    DIRECT,
+    /**
+     * The config is written to a temporary file next to the config file, which is then atomically moved over it,
+     * so the readers never see a partially written config.
+     */
+    ATOMIC,
+    /**
+     * Same as {@link #ATOMIC}, but the temporary file is also forced to the storage device before it is moved.
+     */
+    ATOMIC_FORCE
+  }
+
   /**
    * Indicates that a field should be instantiated / created.
    */
@@ -866,6 +1690,16 @@ public class YamlConfig {
 
   }
 
+  /**
+   * Binds the list, set or map field into a compact immutable collection, which retains much less memory per element.
+   * Sets and maps are compacted if their elements or keys are strings.
+   */
+  @Target(ElementType.FIELD)
+  @Retention(RetentionPolicy.RUNTIME)
+  protected @interface Compact {
+
+  }
+
   /**
    * Allows to (de-)serialize custom types
    */
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * YAML documents, the configs themselves are written by {@link YamlConfig} to keep the comments.
+ */
+final class YamlConfigFormat implements ConfigFormat {
+
+  /**
+   * SnakeYAML instances aren't thread-safe, so each thread that loads configs gets its own parser.
+   */
+  private static final ThreadLocal<Yaml> PARSER = ThreadLocal.withInitial(Yaml::new);
+
+  static Yaml getParser() {
+    return PARSER.get();
+  }
+
+  @Nullable
+  @Override
+  public Object read(InputStream input) throws IOException {
+    YamlEventReader reader = new YamlEventReader(getParser(), new InputStreamReader(input, StandardCharsets.UTF_8));
+    return reader.beginDocument() ? reader.readValue() : null;
+  }
+
+  @Override
+  public void write(OutputStream output, @Nullable Object document) throws IOException {
+    DumperOptions options = new DumperOptions();
+    options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+    Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    new Yaml(options).dump(document, writer);
+    writer.flush();
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Construct;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * Pull reader over the SnakeYAML event stream.
+ *
+ * <p>Config sections are walked key by key, so they are never materialized, only the values of the fields are constructed.
+ */
+final class YamlEventReader {
+
+  private static final Resolver RESOLVER = new Resolver();
+
+  private final Iterator<Event> events;
+  private final boolean timed;
+  private final ScalarConstructor constructor = new ScalarConstructor();
+  private final Map<String, Object> anchors = new HashMap<>();
+  @Nullable
+  private Event next;
+  private long parseNanos;
+
+  YamlEventReader(Yaml yaml, Reader reader) {
+    this(yaml, reader, false);
+  }
+
+  /**
+   * Creates the reader.
+   *
+   * @param timed Whether the time spent in the parser should be measured.
+   */
+  YamlEventReader(Yaml yaml, Reader reader, boolean timed) {
+    this.events = yaml.parse(reader).iterator();
+    this.timed = timed;
+  }
+
+  /**
+   * Gets the time spent in the parser if the reader is timed.
+   */
+  long getParseNanos() {
+    return this.parseNanos;
+  }
+
+  /**
+   * Skips the stream and the document start events.
+   *
+   * @return false if the stream has no documents.
+   */
+  boolean beginDocument() {
+    this.expect(Event.ID.StreamStart);
+    if (this.peek().is(Event.ID.StreamEnd)) {
+      return false;
+    }
+
+    this.expect(Event.ID.DocumentStart);
+    return true;
+  }
+
+  boolean isMapping() {
+    return this.peek().is(Event.ID.MappingStart);
+  }
+
+  void beginMapping() {
+    this.expect(Event.ID.MappingStart);
+  }
+
+  /**
+   * Whether the next value has an anchor, such values should be constructed with {@link #readValue()} to be available for the aliases.
+   */
+  boolean isAnchored() {
+    Event event = this.peek();
+    return event instanceof NodeEvent && !event.is(Event.ID.Alias) && ((NodeEvent) event).getAnchor() != null;
+  }
+
+  /**
+   * Whether the next key of the current mapping is the {@code <<} merge key.
+   */
+  boolean isMergeKey() {
+    Event event = this.peek();
+    return event.is(Event.ID.Scalar) && this.isMergeKey((ScalarEvent) event);
+  }
+
+  /**
+   * Reads the merge key and its value, adding the merged mappings to the map without replacing its keys.
+   */
+  void readMerge(Map<Object, Object> map) {
+    this.readValue();
+    this.merge(map, this.readValue());
+  }
+
+  /**
+   * Reads the next key of the current mapping.
+   *
+   * @return The key, or null if the mapping has ended.
+   */
+  @Nullable
+  String nextKey() {
+    if (this.peek().is(Event.ID.MappingEnd)) {
+      this.poll();
+      return null;
+    }
+
+    return String.valueOf(this.readValue());
+  }
+
+  /**
+   * Reads and constructs the next value.
+   */
+  Object readValue() {
+    Event event = this.poll();
+    if (event.is(Event.ID.Alias)) {
+      String anchor = ((AliasEvent) event).getAnchor();
+      if (!this.anchors.containsKey(anchor)) {
+        throw new IllegalStateException("Found undefined alias " + anchor + " at " + event.getStartMark());
+      }
+
+      return this.anchors.get(anchor);
+    }
+
+    Object value;
+    if (event.is(Event.ID.Scalar)) {
+      value = this.constructScalar((ScalarEvent) event);
+    } else if (event.is(Event.ID.SequenceStart)) {
+      List<Object> list = new ArrayList<>();
+      this.anchor((CollectionStartEvent) event, list);
+      while (!this.peek().is(Event.ID.SequenceEnd)) {
+        list.add(this.readValue());
+      }
+
+      this.poll();
+      value = list;
+    } else if (event.is(Event.ID.MappingStart)) {
+      Map<Object, Object> map = new LinkedHashMap<>();
+      this.anchor((CollectionStartEvent) event, map);
+      while (!this.peek().is(Event.ID.MappingEnd)) {
+        boolean merge = this.peek().is(Event.ID.Scalar) && this.isMergeKey((ScalarEvent) this.peek());
+        Object key = this.readValue();
+        Object mapValue = this.readValue();
+        if (merge) {
+          this.merge(map, mapValue);
+        } else {
+          map.put(key, mapValue);
+        }
+      }
+
+      this.poll();
+      value = map;
+    } else {
+      throw new IllegalStateException("Unexpected event " + event + " at " + event.getStartMark());
+    }
+
+    return value;
+  }
+
+  /**
+   * Skips the next value without constructing it, except for the anchored nodes, which may be used by the subsequent aliases.
+   */
+  void skipValue() {
+    if (this.isAnchored()) {
+      this.readValue();
+      return;
+    }
+
+    Event event = this.poll();
+    if (event.is(Event.ID.MappingStart)) {
+      while (!this.peek().is(Event.ID.MappingEnd)) {
+        this.skipValue();
+      }
+
+      this.poll();
+    } else if (event.is(Event.ID.SequenceStart)) {
+      while (!this.peek().is(Event.ID.SequenceEnd)) {
+        this.skipValue();
+      }
+
+      this.poll();
+    }
+  }
+
+  private Object constructScalar(ScalarEvent event) {
+    Tag tag;
+    String eventTag = event.getTag();
+    if (eventTag == null || eventTag.equals("!")) {
+      tag = RESOLVER.resolve(NodeId.scalar, event.getValue(), event.getImplicit().canOmitTagInPlainScalar());
+    } else {
+      tag = new Tag(eventTag);
+    }
+
+    Object value;
+    if (Tag.STR.equals(tag) || Tag.MERGE.equals(tag)) {
+      value = event.getValue();
+    } else {
+      value = this.constructor.construct(new ScalarNode(tag, event.getValue(), event.getStartMark(), event.getEndMark(), event.getScalarStyle()));
+    }
+
+    this.anchor(event, value);
+    return value;
+  }
+
+  private boolean isMergeKey(ScalarEvent event) {
+    return event.getTag() == null && event.getImplicit().canOmitTagInPlainScalar() && event.getValue().equals("<<");
+  }
+
+  private void merge(Map<Object, Object> map, Object value) {
+    if (value instanceof Map) {
+      ((Map<?, ?>) value).forEach(map::putIfAbsent);
+    } else if (value instanceof List) {
+      for (Object element : (List<?>) value) {
+        this.merge(map, element);
+      }
+    } else {
+      throw new IllegalStateException("Expected a mapping or a list of mappings for merging, but found " + value);
+    }
+  }
+
+  private void anchor(NodeEvent event, Object value) {
+    String anchor = event.getAnchor();
+    if (anchor != null) {
+      this.anchors.put(anchor, value);
+    }
+  }
+
+  private Event peek() {
+    if (this.next == null) {
+      long start = this.timed ? System.nanoTime() : 0L;
+      if (!this.events.hasNext()) {
+        throw new IllegalStateException("Unexpected end of the stream");
+      }
+
+      this.next = this.events.next();
+      if (this.timed) {
+        this.parseNanos += System.nanoTime() - start;
+      }
+    }
+
+    return this.next;
+  }
+
+  private Event poll() {
+    Event event = this.peek();
+    this.next = null;
+    return event;
+  }
+
+  private void expect(Event.ID id) {
+    Event event = this.poll();
+    if (!event.is(id)) {
+      throw new IllegalStateException("Expected " + id + ", but found " + event + " at " + event.getStartMark());
+    }
+  }
+
+  /**
+   * Exposes the SnakeYAML scalar constructors without registering the nodes in the constructed objects cache.
+   */
+  private static final class ScalarConstructor extends SafeConstructor {
+
+    private ScalarConstructor() {
+      super(new LoaderOptions());
+    }
+
+    private Object construct(ScalarNode node) {
+      Construct construct = this.yamlConstructors.get(node.getTag());
+      if (construct == null) {
+        construct = this.yamlConstructors.get(null);
+      }
+
+      return construct.construct(node);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2022 - 2023 Elytrium
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.elytrium.commons.config;
+
+import java.io.IOException;
+
+/**
+ * Streaming YAML emitter that keeps the indentation state and writes directly to the output.
+ *
+ * <p>Line breaks are written lazily, so the break after a nested block may be cancelled to continue its last line.
+ */
+final class YamlWriter {
+
+  private final Appendable out;
+  private final String lineSeparator;
+  private boolean pendingLineBreak;
+  private boolean skipIndent;
+
+  YamlWriter(Appendable out, String lineSeparator) {
+    this.out = out;
+    this.lineSeparator = lineSeparator;
+  }
+
+  void indent(int indent) throws IOException {
+    if (this.skipIndent) {
+      this.skipIndent = false;
+      return;
+    }
+
+    this.flushLineBreak();
+    for (int i = 0; i < indent; ++i) {
+      this.out.append(' ');
+    }
+  }
+
+  void write(char c) throws IOException {
+    this.flushLineBreak();
+    this.out.append(c);
+  }
+
+  void write(CharSequence value) throws IOException {
+    this.flushLineBreak();
+    this.out.append(value);
+  }
+
+  /**
+   * Writes the double-quoted string, escaping the quotes and backslashes and replacing line feeds with {NL}.
+   */
+  void writeQuoted(String value) throws IOException {
+    this.flushLineBreak();
+    this.out.append('"');
+    int start = 0;
+    for (int i = 0, length = value.length(); i < length; ++i) {
+      char c = value.charAt(i);
+      if (c == '\\' || c == '"' || c == '\n') {
+        this.out.append(value, start, i);
+        this.out.append(c == '\\' ? "\\\\" : c == '"' ? "\\\"" : "{NL}");
+        start = i + 1;
+      }
+    }
+
+    this.out.append(value, start, value.length());
+    this.out.append('"');
+  }
+
+  void writeComment(int indent, String comment) throws IOException {
+    this.indent(indent);
+    this.out.append("# ").append(comment);
+    this.lineBreak();
+  }
+
+  void lineBreak() throws IOException {
+    this.flushLineBreak();
+    this.pendingLineBreak = true;
+  }
+
+  /**
+   * Cancels the pending line break, so the next value continues the current line.
+   */
+  void cancelLineBreak() {
+    this.pendingLineBreak = false;
+  }
+
+  /**
+   * Skips the next indentation, so the next block starts on the current line.
+   */
+  void inline() {
+    this.skipIndent = true;
+  }
+
+  /**
+   * Writes the pending line break.
+   */
+  void finish() throws IOException {
+    this.flushLineBreak();
+  }
+
+  private void flushLineBreak() throws IOException {
+    if (this.pendingLineBreak) {
+      this.pendingLineBreak = false;
+      this.out.append(this.lineSeparator);
+    }
+  }
+}
@@ -20,18 +20,36 @@ package net.elytrium.commons.config;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -50,6 +68,8 @@ class YamlConfigTest {
           }
         }
 
+        Assertions.assertEquals(YamlConfig.SaveResult.UNCHANGED, SettingsWithPrefix.IMP.getLastSaveResult());
+
         Assertions.assertNotEquals("prefix value >> final value", SettingsWithPrefix.IMP.FINAL_FIELD); // Final fields shouldn't be changed.
         Assertions.assertEquals("prefix value >>", SettingsWithPrefix.IMP.PREFIX);
         Assertions.assertEquals("prefix value >> regular \"value\"", SettingsWithPrefix.IMP.REGULAR_FIELD);
@@ -124,6 +144,15 @@ class YamlConfigTest {
     Assertions.assertEquals("2 3 1", Placeholders.replace(stringWithPlaceholders, "1", "2", "3"));
     Assertions.assertEquals(1, Placeholders.placeholders.size());
 
+    Assertions.assertEquals("> 2 {PLACEHOLDER2} 1", Placeholders.replaceTo(new StringBuilder("> "), stringWithPlaceholders, "1", "2").toString());
+    PlaceholderArguments arguments = new PlaceholderArguments(1).set(0, 1).set(1, 2.5).set(2, true);
+    Assertions.assertEquals("2.5 true 1", Placeholders.replace(stringWithPlaceholders, arguments));
+    Assertions.assertEquals("{PLACEHOLDER1} {PLACEHOLDER2} c", Placeholders.replace(stringWithPlaceholders, arguments.clear().set(0, 'c')));
+    Map<String, Object> namedArguments = new HashMap<>();
+    namedArguments.put("{PLACEHOLDER1}", 1);
+    namedArguments.put("{PLACEHOLDER3}", 3);
+    Assertions.assertEquals("1 {PLACEHOLDER2} 3", Placeholders.replaceNamed(stringWithPlaceholders, namedArguments));
+
     Placeholders.removePlaceholders(stringWithPlaceholders);
     Assertions.assertEquals(0, Placeholders.placeholders.size());
   }
@@ -178,6 +207,514 @@ class YamlConfigTest {
     Assertions.assertEquals(testPathField, newSettings.pathField);
   }
 
+  @Test
+  void testBinders() throws IOException {
+    Assertions.assertNotNull(ConfigSchema.getBinder(SettingsWithPrefix.class));
+    Assertions.assertNotNull(ConfigSchema.getBinder(SettingsWithPrefix.NODE_TEST.TestNodeSequence.class));
+    Assertions.assertNull(ConfigSchema.getBinder(ReflectiveSettings.class)); // Private classes can't be accessed by the generated binders.
+
+    Path reflectiveConfigPath = Files.createTempFile("ReflectiveConfig", ".yml");
+    File reflectiveConfigFile = this.processTempFile(reflectiveConfigPath);
+    ReflectiveSettings settings = new ReflectiveSettings();
+    settings.reload(reflectiveConfigFile);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.reload(reflectiveConfigFile));
+    Assertions.assertEquals("value", settings.FIELD);
+    Assertions.assertEquals(10, settings.SECTION.NUMBER);
+  }
+
+  @Test
+  void testAnchors() throws IOException {
+    Path anchorsConfigPath = Files.createTempFile("AnchorsConfig", ".yml");
+    Files.write(anchorsConfigPath, ("first: &section\n  name: \"hello\"\n  weight: 2\nsecond: *section\n"
+        + "unknown: &unknown \"foo\"\nother-unknown:\n  nested: &nested 7\nname: *unknown\n").getBytes(StandardCharsets.UTF_8));
+    AnchorSettings settings = new AnchorSettings();
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(anchorsConfigPath));
+    Assertions.assertEquals("hello", settings.SECOND.NAME); // Aliases to the sections.
+    Assertions.assertEquals(2, settings.SECOND.WEIGHT);
+    Assertions.assertEquals("foo", settings.NAME); // Aliases to the skipped unknown keys.
+
+    Files.write(anchorsConfigPath, ("first: &section {name: \"hello\", weight: 2}\nsecond:\n  <<: *section\n  weight: 3\n"
+        + "unknown: {nested: &nested 7}\nthird:\n  weight: 4\n  <<: [*section, {name: \"ignored\"}]\nname: *nested\n").getBytes(StandardCharsets.UTF_8));
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(anchorsConfigPath));
+    Assertions.assertEquals("hello", settings.SECOND.NAME); // Merge keys in the sections.
+    Assertions.assertEquals(3, settings.SECOND.WEIGHT);
+    Assertions.assertEquals("hello", settings.THIRD.NAME);
+    Assertions.assertEquals(4, settings.THIRD.WEIGHT); // The merged keys shouldn't replace the keys of the section.
+    Assertions.assertEquals("7", settings.NAME);
+    Assertions.assertFalse(settings.getLastLoadReport().hasFailures());
+    Files.delete(anchorsConfigPath);
+  }
+
+  @Test
+  void testAtomicSave() throws IOException {
+    Path atomicConfigPath = Files.createTempFile("AtomicConfig", ".yml");
+    ReflectiveSettings settings = new ReflectiveSettings();
+    settings.setSaveMode(YamlConfig.SaveMode.ATOMIC_FORCE);
+    Assertions.assertEquals(YamlConfig.SaveResult.WRITTEN, settings.saveIfChanged(atomicConfigPath));
+    Assertions.assertEquals(YamlConfig.SaveResult.UNCHANGED, settings.saveIfChanged(atomicConfigPath));
+    settings.save(atomicConfigPath);
+    Assertions.assertEquals(YamlConfig.SaveResult.UNCHANGED, settings.getLastSaveResult());
+    this.assertNoTempFiles(atomicConfigPath);
+
+    settings.FIELD = "changed";
+    Assertions.assertEquals(YamlConfig.SaveResult.WRITTEN, settings.saveIfChanged(atomicConfigPath));
+    ReflectiveSettings loadedSettings = new ReflectiveSettings();
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, loadedSettings.load(atomicConfigPath));
+    Assertions.assertEquals("changed", loadedSettings.FIELD);
+
+    // Concurrent saves of the same file shouldn't share the temp file.
+    List<CompletableFuture<YamlConfig.SaveResult>> saves = new ArrayList<>();
+    for (int i = 0; i < 8; ++i) {
+      ReflectiveSettings concurrentSettings = new ReflectiveSettings();
+      concurrentSettings.setSaveMode(YamlConfig.SaveMode.ATOMIC);
+      concurrentSettings.FIELD = "concurrent " + i;
+      saves.add(concurrentSettings.saveAsync(atomicConfigPath));
+      saves.add(CompletableFuture.completedFuture(concurrentSettings.saveIfChanged(atomicConfigPath)));
+    }
+
+    saves.forEach(CompletableFuture::join);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, loadedSettings.load(atomicConfigPath));
+    Assertions.assertTrue(loadedSettings.FIELD.startsWith("concurrent "));
+    this.assertNoTempFiles(atomicConfigPath);
+    Files.delete(atomicConfigPath);
+  }
+
+  @Test
+  void testAsyncLoad() throws IOException {
+    Path asyncConfigPath = Files.createTempFile("AsyncConfig", ".yml");
+    ReflectiveSettings settings = new ReflectiveSettings();
+    settings.FIELD = "saved";
+    Assertions.assertEquals(YamlConfig.SaveResult.WRITTEN, settings.saveAsync(asyncConfigPath).join());
+
+    ReflectiveSettings loadedSettings = new ReflectiveSettings();
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, loadedSettings.loadAsync(asyncConfigPath, null).join());
+    Assertions.assertEquals("saved", loadedSettings.FIELD);
+
+    Files.write(asyncConfigPath, "field: \"broken\"\nsection: [".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertThrows(CompletionException.class, () -> loadedSettings.loadAsync(asyncConfigPath, null).join());
+    Assertions.assertEquals("saved", loadedSettings.FIELD); // Values of the failed load shouldn't be published.
+    Files.delete(asyncConfigPath);
+  }
+
+  @Test
+  void testConfigWatcher() throws IOException, InterruptedException {
+    Path watchedDirectory = Files.createTempDirectory("ConfigWatcher").toAbsolutePath().normalize();
+    Path firstConfigPath = watchedDirectory.resolve("first.yml");
+    Path secondConfigPath = watchedDirectory.resolve("second.yml");
+    ReflectiveSettings firstSettings = new ReflectiveSettings();
+    List<Path> reloads = new CopyOnWriteArrayList<>();
+    List<Path> failures = new CopyOnWriteArrayList<>();
+    WatchEvent<Object> overflow = new WatchEvent<Object>() {
+
+      @Override
+      public Kind<Object> kind() {
+        return StandardWatchEventKinds.OVERFLOW;
+      }
+
+      @Override
+      public int count() {
+        return 1;
+      }
+
+      @Override
+      public Object context() {
+        return null;
+      }
+    };
+
+    try (ConfigWatcher watcher = new ConfigWatcher(200, TimeUnit.MILLISECONDS)) {
+      watcher.addListener((config, configFile, result) -> {
+        throw new IllegalStateException("Listener failure"); // Shouldn't affect the other listeners.
+      });
+      watcher.addListener(new ConfigWatcher.Listener() {
+
+        @Override
+        public void onReload(YamlConfig config, Path configFile, YamlConfig.LoadResult result) {
+          reloads.add(configFile);
+        }
+
+        @Override
+        public void onFailure(YamlConfig config, Path configFile, Throwable cause) {
+          failures.add(configFile);
+        }
+      });
+
+      watcher.watch(firstSettings, firstConfigPath, "prefix");
+      watcher.watch(new ReflectiveSettings(), secondConfigPath);
+      // Configs of the same directory share the watch key, so all of them are reloaded if the events were lost.
+      Assertions.assertEquals(2, watcher.getAffectedConfigs(watchedDirectory, Collections.singletonList(overflow)).size());
+      watcher.unwatch(secondConfigPath);
+      Assertions.assertEquals(Collections.singletonList(firstConfigPath), watcher.getAffectedConfigs(watchedDirectory,
+          Collections.singletonList(overflow)).stream().map(ConfigWatcher.WatchedConfig::getFile).collect(Collectors.toList()));
+
+      for (int i = 1; i <= 3; ++i) {
+        Files.write(firstConfigPath, ("field: \"{PRFX} " + i + "\"\n").getBytes(StandardCharsets.UTF_8));
+        Thread.sleep(20);
+      }
+
+      for (int i = 0; i < 100 && reloads.isEmpty(); ++i) {
+        Thread.sleep(100);
+      }
+
+      Thread.sleep(600);
+      Assertions.assertEquals(Collections.singletonList(firstConfigPath), reloads); // The modifications should be debounced.
+      Assertions.assertEquals(Collections.emptyList(), failures);
+      Assertions.assertEquals("prefix 3", firstSettings.FIELD);
+    }
+
+    Files.delete(firstConfigPath);
+    Files.delete(watchedDirectory);
+  }
+
+  @Test
+  void testStagingLoad() throws IOException {
+    Path stagingConfigPath = Files.createTempFile("StagingConfig", ".yml");
+    Files.write(stagingConfigPath, "field: \"loaded\"\nsection:\n  number: 20\n".getBytes(StandardCharsets.UTF_8));
+    StagingSettings settings = new StagingSettings();
+    settings.FINAL_VALUE = "runtime";
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(stagingConfigPath));
+    Assertions.assertEquals("loaded", settings.FIELD);
+    Assertions.assertEquals("runtime", settings.FINAL_VALUE); // Final values shouldn't be replaced by the class defaults.
+    Assertions.assertEquals(20, settings.SECTION.NUMBER);
+
+    settings.SECTION.NAME = "runtime";
+    Files.write(stagingConfigPath, "section:\n  number: 30\n".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(stagingConfigPath));
+    Assertions.assertEquals("loaded", settings.FIELD); // Keys missing from the file should keep their values.
+    Assertions.assertEquals("runtime", settings.SECTION.NAME);
+    Assertions.assertEquals(30, settings.SECTION.NUMBER);
+
+    StagingSettings.SECTION section = settings.SECTION;
+    Files.write(stagingConfigPath, "section:\n  number: 40\nfield: [".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertThrows(ConfigLoadException.class, () -> settings.load(stagingConfigPath));
+    Assertions.assertEquals(30, section.NUMBER); // Sections shouldn't be modified by the failed loads.
+    Assertions.assertSame(section, settings.SECTION);
+
+    Files.write(stagingConfigPath, "field: \"loaded\"\n".getBytes(StandardCharsets.UTF_8));
+    ConstructorSettings constructorSettings = new ConstructorSettings("runtime");
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, constructorSettings.load(stagingConfigPath)); // Loaded in place.
+    Assertions.assertEquals("loaded", constructorSettings.FIELD);
+    try (Stream<Path> files = Files.list(stagingConfigPath.getParent())) {
+      files.filter(path -> path.getFileName().toString().startsWith(stagingConfigPath.getFileName() + "_invalid_"))
+          .forEach(path -> path.toFile().delete());
+    }
+
+    Files.delete(stagingConfigPath);
+  }
+
+  @Test
+  void testConfigReference() throws IOException {
+    Path referenceConfigPath = Files.createTempFile("ReferenceConfig", ".yml");
+    Files.delete(referenceConfigPath);
+    ConfigReference<ReflectiveSettings> reference = new ConfigReference<>(new ReflectiveSettings());
+    ReflectiveSettings defaultSettings = reference.get();
+    Assertions.assertEquals(YamlConfig.LoadResult.CONFIG_NOT_EXISTS, reference.reload(referenceConfigPath));
+    Assertions.assertNotSame(defaultSettings, reference.get());
+
+    ReflectiveSettings oldSettings = reference.get();
+    List<Object> changes = new ArrayList<>();
+    oldSettings.onChange("section.number", (oldValue, newValue) -> changes.add(newValue));
+    oldSettings.<ReflectiveSettings.SECTION>onChange("section", (oldValue, newValue) -> changes.add(newValue.NUMBER));
+    Files.write(referenceConfigPath, "field: \"new value\"\nsection:\n  number: 20\n".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, reference.load(referenceConfigPath));
+    Assertions.assertEquals(Arrays.asList(20, 20), changes);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, reference.load(referenceConfigPath));
+    Assertions.assertEquals(2, changes.size()); // Listeners shouldn't be called if nothing was changed.
+    Assertions.assertEquals("value", oldSettings.FIELD); // Snapshots shouldn't be modified by the subsequent loads.
+    Assertions.assertEquals(10, oldSettings.SECTION.NUMBER);
+    Assertions.assertEquals("new value", reference.get().FIELD);
+    Assertions.assertEquals(20, reference.get().SECTION.NUMBER);
+    Files.delete(referenceConfigPath);
+  }
+
+  @Test
+  void testMacros() throws IOException {
+    Path macroConfigPath = Files.createTempFile("MacroConfig", ".yml");
+    Files.write(macroConfigPath, "field: \"{SERVER}:{NL}{UNKNOWN}\"\n".getBytes(StandardCharsets.UTF_8));
+    ReflectiveSettings settings = new ReflectiveSettings();
+    settings.registerMacro("server", "lobby");
+    Assertions.assertThrows(IllegalArgumentException.class, () -> settings.registerMacro("{PRFX}", "value"));
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(macroConfigPath));
+    Assertions.assertEquals("lobby:\n{UNKNOWN}", settings.FIELD);
+    settings.save(macroConfigPath);
+    Assertions.assertTrue(new String(Files.readAllBytes(macroConfigPath), StandardCharsets.UTF_8).contains("field: \"{SERVER}:{NL}{UNKNOWN}\""));
+    Files.delete(macroConfigPath);
+  }
+
+  @Test
+  void testSerializerResolution() throws IOException {
+    Path serializedConfigPath = Files.createTempFile("SerializedConfig", ".yml");
+    Files.write(serializedConfigPath, ("paths:\n  - \"a\"\n  - \"b\"\nnamed-paths:\n  c: \"d\"\ncircle: \"2.5\"\n").getBytes(StandardCharsets.UTF_8));
+    SerializedSettings settings = new SerializedSettings();
+    settings.registerSerializer(new PathSerializer());
+    settings.registerSerializer(new ShapeSerializer());
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(serializedConfigPath));
+    Assertions.assertEquals(Arrays.asList(Paths.get("a"), Paths.get("b")), settings.PATHS);
+    Assertions.assertEquals(Collections.singletonMap("c", Paths.get("d")), settings.NAMED_PATHS);
+    Assertions.assertEquals(2.5, settings.CIRCLE.radius);
+    Assertions.assertEquals(YamlConfig.SaveResult.UNCHANGED, settings.saveIfChanged(serializedConfigPath));
+    Files.delete(serializedConfigPath);
+  }
+
+  @Test
+  void testNumericCoercion() throws IOException {
+    Path coercedConfigPath = Files.createTempFile("CoercedConfig", ".yml");
+    Files.write(coercedConfigPath, ("long-value: 5\nfloat-value: 0.5\ndouble-value: 3\nshort-value: \"7\"\nboxed-long: 9\n"
+        + "size: \"64MB\"\ntimeout: \"1m30s\"\n").getBytes(StandardCharsets.UTF_8));
+    CoercedSettings settings = new CoercedSettings();
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(coercedConfigPath));
+    Assertions.assertEquals(5L, settings.LONG_VALUE);
+    Assertions.assertEquals(0.5F, settings.FLOAT_VALUE);
+    Assertions.assertEquals(3.0, settings.DOUBLE_VALUE);
+    Assertions.assertEquals((short) 7, settings.SHORT_VALUE);
+    Assertions.assertEquals(Long.valueOf(9L), settings.BOXED_LONG);
+    Assertions.assertEquals(64L << 20, settings.SIZE);
+    Assertions.assertEquals(Duration.ofSeconds(90), settings.TIMEOUT);
+    Assertions.assertFalse(settings.getLastLoadReport().hasFailures());
+    settings.save(coercedConfigPath);
+    Assertions.assertTrue(new String(Files.readAllBytes(coercedConfigPath), StandardCharsets.UTF_8).contains("timeout: \"1m30s\""));
+
+    Files.write(coercedConfigPath, "short-value: 100000\ntimeout: \"250\"\n".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(coercedConfigPath));
+    Assertions.assertEquals((short) 7, settings.SHORT_VALUE); // Out of range values should keep the previous value.
+    Assertions.assertEquals(Duration.ofMillis(250), settings.TIMEOUT);
+    LoadReport report = settings.getLastLoadReport();
+    Assertions.assertEquals(1, report.getFailures().size());
+    Assertions.assertEquals("short-value", report.getFailures().get(0).getPath());
+    Assertions.assertEquals(Integer.class, report.getFailures().get(0).getValueType());
+    Assertions.assertNotNull(report.getBackupFile());
+    Assertions.assertTrue(Files.exists(report.getBackupFile()));
+    Files.list(coercedConfigPath.getParent())
+        .filter(path -> path.getFileName().toString().startsWith(coercedConfigPath.getFileName() + "_backup_"))
+        .forEach(path -> path.toFile().delete());
+    Files.delete(coercedConfigPath);
+  }
+
+  @Test
+  void testCollections() throws IOException {
+    Path collectionsConfigPath = Files.createTempFile("CollectionsConfig", ".yml");
+    Files.write(collectionsConfigPath, ("names:\n  - \"a\"\n  - \"b\"\n  - \"a\"\ncompact-names:\n  - \"c\"\n  - \"d\"\n"
+        + "compact-list:\n  - 1\n  - 2\ncompact-map:\n  e: \"f\"\n  g: \"h\"\n").getBytes(StandardCharsets.UTF_8));
+    CollectionSettings settings = new CollectionSettings();
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(collectionsConfigPath));
+    Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b")), settings.NAMES);
+    Assertions.assertEquals(new LinkedHashSet<>(Arrays.asList("c", "d")), settings.COMPACT_NAMES);
+    Assertions.assertTrue(settings.COMPACT_NAMES.contains("d"));
+    Assertions.assertFalse(settings.COMPACT_NAMES.contains("e"));
+    Assertions.assertEquals(Arrays.asList(1, 2), settings.COMPACT_LIST);
+    Assertions.assertEquals("h", settings.COMPACT_MAP.get("g"));
+    Assertions.assertNull(settings.COMPACT_MAP.get("f"));
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> settings.COMPACT_MAP.put("i", "j"));
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> settings.COMPACT_LIST.add(3));
+
+    settings.save(collectionsConfigPath);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(collectionsConfigPath));
+    Assertions.assertEquals(YamlConfig.SaveResult.UNCHANGED, settings.saveIfChanged(collectionsConfigPath));
+    Assertions.assertEquals(Arrays.asList("e", "g"), new ArrayList<>(settings.COMPACT_MAP.keySet()));
+    Files.delete(collectionsConfigPath);
+  }
+
+  @Test
+  void testParallelBinding() throws IOException {
+    Path parallelConfigPath = Files.createTempFile("ParallelConfig", ".yml");
+    StringBuilder data = new StringBuilder("routes:\n");
+    for (int i = 0; i < 1000; ++i) {
+      data.append("  - name: \"route-").append(i).append("\"\n    weight: ").append(i).append('\n');
+    }
+
+    data.append("named-routes:\n");
+    for (int i = 0; i < 1000; ++i) {
+      data.append("  route-").append(i).append(":\n    name: \"{PRFX} ").append(i).append("\"\n    weight: ").append(i).append('\n');
+    }
+
+    Files.write(parallelConfigPath, data.toString().getBytes(StandardCharsets.UTF_8));
+    ParallelSettings settings = new ParallelSettings();
+    settings.setParallelBinding(16);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(parallelConfigPath, "prefix"));
+    Assertions.assertEquals(1000, settings.ROUTES.size());
+    Assertions.assertEquals(1000, settings.NAMED_ROUTES.size());
+    int index = 0;
+    for (Map.Entry<String, ParallelSettings.Route> entry : settings.NAMED_ROUTES.entrySet()) {
+      Assertions.assertEquals("route-" + index, settings.ROUTES.get(index).name);
+      Assertions.assertEquals(index, settings.ROUTES.get(index).weight);
+      Assertions.assertEquals("route-" + index, entry.getKey());
+      Assertions.assertEquals("prefix " + index, entry.getValue().name);
+      ++index;
+    }
+
+    settings.save(parallelConfigPath);
+    Assertions.assertEquals(data.toString(), new String(Files.readAllBytes(parallelConfigPath), StandardCharsets.UTF_8));
+    Files.delete(parallelConfigPath);
+  }
+
+  @Test
+  void testBinaryCache() throws IOException {
+    Path cacheDirectory = Files.createTempDirectory("ConfigCache");
+    Path cachedConfigPath = cacheDirectory.resolve("config.yml");
+    Files.write(cachedConfigPath, "routes:\n  - name: \"{PRFX}\"\n    weight: 5\nnamed-routes: {}\n".getBytes(StandardCharsets.UTF_8));
+    for (int i = 0; i < 2; ++i) {
+      ParallelSettings settings = new ParallelSettings();
+      settings.setBinaryCache(true);
+      Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(cachedConfigPath, "prefix"));
+      Assertions.assertTrue(Files.exists(cacheDirectory.resolve(".config.yml.cache")));
+      Assertions.assertEquals("prefix", settings.ROUTES.get(0).name);
+      Assertions.assertEquals(5, settings.ROUTES.get(0).weight);
+    }
+
+    Files.write(cachedConfigPath, "routes:\n  - name: \"changed\"\n    weight: 6\n".getBytes(StandardCharsets.UTF_8));
+    ParallelSettings settings = new ParallelSettings();
+    settings.setBinaryCache(true);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(cachedConfigPath));
+    Assertions.assertEquals("changed", settings.ROUTES.get(0).name);
+    Assertions.assertEquals(6, settings.ROUTES.get(0).weight);
+
+    // Concurrent loads of the same config shouldn't share the temp cache file.
+    Files.write(cachedConfigPath, "routes:\n  - name: \"concurrent\"\n    weight: 7\n".getBytes(StandardCharsets.UTF_8));
+    List<CompletableFuture<YamlConfig.LoadResult>> loads = new ArrayList<>();
+    for (int i = 0; i < 8; ++i) {
+      ParallelSettings concurrentSettings = new ParallelSettings();
+      concurrentSettings.setBinaryCache(true);
+      loads.add(concurrentSettings.loadAsync(cachedConfigPath, null));
+    }
+
+    loads.forEach(load -> Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, load.join()));
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      Assertions.assertFalse(files.anyMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+    }
+
+    settings.load(cachedConfigPath);
+    Assertions.assertEquals("concurrent", settings.ROUTES.get(0).name);
+
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      files.forEach(path -> path.toFile().delete());
+    }
+    Files.delete(cacheDirectory);
+  }
+
+  @Test
+  void testConfigManager() throws IOException {
+    Path managerDirectory = Files.createTempDirectory("ConfigManager");
+    ConfigManager manager = new ConfigManager();
+    ReflectiveSettings reflectiveSettings = manager.register(ReflectiveSettings.class, managerDirectory.resolve("reflective.yml"));
+    CoercedSettings coercedSettings = manager.register(new CoercedSettings(), managerDirectory.resolve("coerced.yml"), "prefix");
+    // The same instance shouldn't be loaded concurrently for two files.
+    Assertions.assertThrows(IllegalArgumentException.class, () -> manager.register(coercedSettings, managerDirectory.resolve("other.yml")));
+    ConfigManager.Result result = manager.loadAll();
+    Assertions.assertTrue(result.isSuccessful());
+    Assertions.assertEquals(2, result.getEntries().size());
+    Assertions.assertSame(reflectiveSettings, result.getEntries().get(0).getConfig());
+    Assertions.assertSame(coercedSettings, result.getEntries().get(1).getConfig());
+    result.getEntries().forEach(entry -> Assertions.assertEquals(YamlConfig.LoadResult.CONFIG_NOT_EXISTS, entry.getResult()));
+
+    result = manager.reloadAll();
+    Assertions.assertTrue(result.isSuccessful());
+    Assertions.assertTrue(Files.exists(managerDirectory.resolve("reflective.yml")));
+    Assertions.assertTrue(Files.exists(managerDirectory.resolve("coerced.yml")));
+
+    Files.write(managerDirectory.resolve("coerced.yml"), "long-value: [".getBytes(StandardCharsets.UTF_8));
+    result = manager.loadAll();
+    Assertions.assertFalse(result.isSuccessful());
+    Assertions.assertEquals(1, result.getFailures().size());
+    Assertions.assertSame(coercedSettings, result.getFailures().get(0).getConfig());
+    Assertions.assertEquals(YamlConfig.LoadResult.FAIL, result.getFailures().get(0).getResult());
+    Assertions.assertTrue(result.getFailures().get(0).getFailure() instanceof ConfigLoadException);
+
+    try (Stream<Path> files = Files.list(managerDirectory)) {
+      files.forEach(path -> path.toFile().delete());
+    }
+    Files.delete(managerDirectory);
+  }
+
+  @Test
+  void testMetrics() throws IOException {
+    Path metricsConfigPath = Files.createTempFile("MetricsConfig", ".yml");
+    Files.write(metricsConfigPath, "field: \"value\"\nunknown: 1\nsection:\n  number: \"NaN\"\n".getBytes(StandardCharsets.UTF_8));
+    ReflectiveSettings settings = new ReflectiveSettings();
+    List<ConfigMetricsListener.Load> loads = new ArrayList<>();
+    settings.addMetricsListener(new ConfigMetricsListener() {
+
+      @Override
+      public void onLoad(YamlConfig config, Path configFile, Load metrics) {
+        loads.add(metrics);
+      }
+    });
+
+    try (ConfigMetrics metrics = ConfigMetrics.register(settings, "test")) {
+      Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(metricsConfigPath));
+      Assertions.assertEquals(1, loads.size());
+      Assertions.assertEquals(4, loads.get(0).getKeyCount());
+      Assertions.assertEquals(1, loads.get(0).getUnknownKeyCount());
+      Assertions.assertEquals(1, loads.get(0).getFailedFieldCount());
+      Assertions.assertEquals(Files.size(metricsConfigPath), loads.get(0).getFileSize());
+      Assertions.assertEquals(1, metrics.getLoadCount());
+      Assertions.assertEquals(1, metrics.getFailedFieldCount());
+
+      settings.save(metricsConfigPath);
+      Assertions.assertEquals(1, metrics.getSaveCount());
+      Assertions.assertTrue(ManagementFactory.getPlatformMBeanServer()
+          .isRegistered(new ObjectName("net.elytrium.commons.config:type=Config,name=\"test\"")));
+    } catch (MalformedObjectNameException e) {
+      throw new IllegalStateException(e);
+    }
+
+    Files.delete(settings.getLastLoadReport().getBackupFile());
+    Files.delete(metricsConfigPath);
+  }
+
+  @Test
+  void testFormats() throws IOException {
+    Path jsonConfigPath = Files.createTempFile("JsonConfig", ".json");
+    Files.write(jsonConfigPath, ("{\"routes\": [{\"name\": \"{PRFX} \\u0041\", \"weight\": 5}],"
+        + " \"named-routes\": {\"second\": {\"name\": \"b\\n\", \"weight\": -7}}}").getBytes(StandardCharsets.UTF_8));
+    ParallelSettings settings = new ParallelSettings();
+    settings.setFormat(ConfigFormat.JSON);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, settings.load(jsonConfigPath, "prefix"));
+    Assertions.assertEquals("prefix A", settings.ROUTES.get(0).name);
+    Assertions.assertEquals(5, settings.ROUTES.get(0).weight);
+    Assertions.assertEquals("b\n", settings.NAMED_ROUTES.get("second").name);
+    Assertions.assertEquals(-7, settings.NAMED_ROUTES.get("second").weight);
+    Assertions.assertEquals(YamlConfig.SaveResult.WRITTEN, settings.saveIfChanged(jsonConfigPath));
+    Assertions.assertEquals(YamlConfig.SaveResult.UNCHANGED, settings.saveIfChanged(jsonConfigPath));
+    Assertions.assertTrue(new String(Files.readAllBytes(jsonConfigPath), StandardCharsets.UTF_8).contains("\"{PRFX} A\""));
+
+    ParallelSettings reloadedSettings = new ParallelSettings();
+    reloadedSettings.setFormat(ConfigFormat.JSON);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, reloadedSettings.load(jsonConfigPath, "prefix"));
+    Assertions.assertEquals("prefix A", reloadedSettings.ROUTES.get(0).name);
+    Assertions.assertEquals(-7, reloadedSettings.NAMED_ROUTES.get("second").weight);
+
+    Path binaryConfigPath = Files.createTempFile("BinaryConfig", ".bin");
+    CoercedSettings coercedSettings = new CoercedSettings();
+    coercedSettings.setFormat(ConfigFormat.BINARY);
+    coercedSettings.LONG_VALUE = Long.MAX_VALUE;
+    coercedSettings.FLOAT_VALUE = 1.5F;
+    coercedSettings.SHORT_VALUE = 3;
+    coercedSettings.TIMEOUT = Duration.ofSeconds(90);
+    Assertions.assertEquals(YamlConfig.SaveResult.WRITTEN, coercedSettings.saveIfChanged(binaryConfigPath));
+
+    CoercedSettings loadedSettings = new CoercedSettings();
+    loadedSettings.setFormat(ConfigFormat.BINARY);
+    Assertions.assertEquals(YamlConfig.LoadResult.SUCCESS, loadedSettings.load(binaryConfigPath));
+    Assertions.assertEquals(Long.MAX_VALUE, loadedSettings.LONG_VALUE);
+    Assertions.assertEquals(1.5F, loadedSettings.FLOAT_VALUE);
+    Assertions.assertEquals(3, loadedSettings.SHORT_VALUE);
+    Assertions.assertEquals(Duration.ofSeconds(90), loadedSettings.TIMEOUT);
+    Assertions.assertEquals(YamlConfig.SaveResult.UNCHANGED, loadedSettings.saveIfChanged(binaryConfigPath));
+
+    Files.write(jsonConfigPath, "{\"routes\": [".getBytes(StandardCharsets.UTF_8));
+    Assertions.assertThrows(ConfigLoadException.class, () -> new ParallelSettings().load(jsonConfigPath));
+    // The corrupted lengths shouldn't be allocated.
+    Files.write(binaryConfigPath, ByteBuffer.allocate(10).putInt(0x45434642).put((byte) 1).put((byte) 8).putInt(Integer.MAX_VALUE).array());
+    Assertions.assertThrows(ConfigLoadException.class, () -> loadedSettings.load(binaryConfigPath));
+    try (Stream<Path> files = Files.list(jsonConfigPath.getParent())) {
+      files.filter(path -> path.getFileName().toString().startsWith(jsonConfigPath.getFileName() + "_invalid_")
+          || path.getFileName().toString().startsWith(binaryConfigPath.getFileName() + "_invalid_")).forEach(path -> path.toFile().delete());
+    }
+
+    Files.delete(jsonConfigPath);
+    Files.delete(binaryConfigPath);
+  }
+
   private void assertNodeSequence(SettingsWithPrefix.NODE_TEST.TestNodeSequence node, String expectedString, int expectedInteger, String a, int b) {
     Assertions.assertEquals(0, node.IGNORED);
     Assertions.assertEquals("{PRFX} final", node.FINAL_FIELD);
@@ -187,6 +724,12 @@ class YamlConfigTest {
     Assertions.assertEquals(b, node.OTHER_NODE_SEQ.B);
   }
 
+  private void assertNoTempFiles(Path configPath) throws IOException {
+    try (Stream<Path> files = Files.list(configPath.getParent())) {
+      Assertions.assertFalse(files.anyMatch(path -> path.getFileName().toString().startsWith("." + configPath.getFileName())));
+    }
+  }
+
   private File processTempFile(Path path) {
     File file = path.toFile();
     if (!file.delete()) { // We don't need an empty temp file, we need only path.
@@ -550,6 +1093,133 @@ class YamlConfigTest {
     }
   }
 
+  interface Shape {
+
+  }
+
+  static class Circle implements Shape {
+
+    private final double radius;
+
+    Circle(double radius) {
+      this.radius = radius;
+    }
+  }
+
+  static class ShapeSerializer extends ConfigSerializer<Shape, String> {
+
+    ShapeSerializer() {
+      super(Shape.class, String.class);
+    }
+
+    @Override
+    public Shape deserialize(String from) {
+      return new Circle(Double.parseDouble(from));
+    }
+
+    @Override
+    public String serialize(Shape from) {
+      return String.valueOf(((Circle) from).radius);
+    }
+  }
+
+  private static class SerializedSettings extends YamlConfig {
+
+    public List<Path> PATHS = new ArrayList<>();
+    public Map<String, Path> NAMED_PATHS = new LinkedHashMap<>();
+    public Circle CIRCLE = new Circle(1);
+  }
+
+  private static class CoercedSettings extends YamlConfig {
+
+    public long LONG_VALUE = 1;
+    public float FLOAT_VALUE = 1;
+    public double DOUBLE_VALUE = 1;
+    public short SHORT_VALUE = 1;
+    public Long BOXED_LONG = 1L;
+    public long SIZE = 1;
+    public Duration TIMEOUT = Duration.ofSeconds(1);
+  }
+
+  private static class CollectionSettings extends YamlConfig {
+
+    public Set<String> NAMES = new HashSet<>();
+    @Compact
+    public Set<String> COMPACT_NAMES = new HashSet<>();
+    @Compact
+    public List<Integer> COMPACT_LIST = new ArrayList<>();
+    @Compact
+    public Map<String, String> COMPACT_MAP = new HashMap<>();
+  }
+
+  private static class ParallelSettings extends YamlConfig {
+
+    public List<Route> ROUTES = new ArrayList<>();
+    public Map<String, Route> NAMED_ROUTES = new LinkedHashMap<>();
+
+    public static class Route {
+
+      public String name;
+      public int weight;
+    }
+  }
+
+  private static class AnchorSettings extends YamlConfig {
+
+    public String NAME = "";
+
+    @Create
+    public SECTION FIRST;
+    @Create
+    public SECTION SECOND;
+    @Create
+    public SECTION THIRD;
+
+    public static class SECTION {
+
+      public String NAME = "";
+      public int WEIGHT;
+    }
+  }
+
+  private static class StagingSettings extends YamlConfig {
+
+    public String FIELD = "value";
+    @Final
+    public String FINAL_VALUE = "1";
+
+    @Create
+    public SECTION SECTION;
+
+    public static class SECTION {
+
+      public String NAME = "name";
+      public int NUMBER = 10;
+    }
+  }
+
+  private static class ConstructorSettings extends YamlConfig {
+
+    public String FIELD;
+
+    ConstructorSettings(String field) {
+      this.FIELD = field;
+    }
+  }
+
+  private static class ReflectiveSettings extends YamlConfig {
+
+    public String FIELD = "value";
+
+    @Create
+    public SECTION SECTION;
+
+    public static class SECTION {
+
+      public int NUMBER = 10;
+    }
+  }
+
   private enum RegularEnum {
 
     ENUM_VALUE_1,